@@ -43,6 +43,7 @@ android {
 
 dependencies {
 
+    implementation(project(":core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     testImplementation(libs.junit)
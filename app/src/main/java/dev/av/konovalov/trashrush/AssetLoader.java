@@ -0,0 +1,129 @@
+package dev.av.konovalov.trashrush;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes drawable resources straight to the size they are drawn at, several at a time.
+ * <p>
+ * A resource is subsampled while decoding (inSampleSize) and the decoder scales the rest
+ * of the way (inDensity / inTargetDensity), so a full-size copy is never allocated.
+ * Opaque images are decoded as RGB_565. The results go through the {@link BitmapCache},
+ * they are shared and must not be recycled.
+ */
+class AssetLoader {
+    private final Resources resources;
+    private final ExecutorService executor;
+
+    AssetLoader(Resources resources) {
+        this.resources = resources;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    Future<Bitmap> load(int resId, int width, int height, boolean opaque) {
+        return executor.submit(() -> decode(resources, resId, width, height, opaque));
+    }
+
+    /**
+     * Keeps the aspect ratio.
+     */
+    Future<Bitmap> loadToWidth(int resId, int width, boolean opaque) {
+        return load(resId, width, 0, opaque);
+    }
+
+    /**
+     * Keeps the aspect ratio.
+     */
+    Future<Bitmap> loadToHeight(int resId, int height, boolean opaque) {
+        return load(resId, 0, height, opaque);
+    }
+
+    /**
+     * Waits until the bitmap is decoded.
+     */
+    static Bitmap get(Future<Bitmap> future) {
+        while (true) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Can't load a bitmap", e.getCause());
+            }
+        }
+    }
+
+    void release() {
+        executor.shutdown();
+    }
+
+    /**
+     * Decodes the image on the calling thread, as large as it fits into the given size
+     * with the aspect ratio kept.
+     */
+    static Bitmap decodeToFit(Resources resources, int resId, int maxWidth, int maxHeight) {
+        BitmapFactory.Options options = readBounds(resources, resId);
+        if ((float) options.outWidth / options.outHeight > (float) maxWidth / maxHeight) {
+            return decode(resources, resId, maxWidth, 0, false);
+        } else {
+            return decode(resources, resId, 0, maxHeight, false);
+        }
+    }
+
+    /**
+     * @param width  0 to keep the aspect ratio
+     * @param height 0 to keep the aspect ratio
+     */
+    private static Bitmap decode(Resources resources, int resId, int width, int height, boolean opaque) {
+        Bitmap.Config config = opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        String key = BitmapCache.key(resId, width, height, config);
+        Bitmap cached = BitmapCache.getInstance().get(key);
+        if (cached != null) return cached;
+
+        BitmapFactory.Options options = readBounds(resources, resId);
+        int sourceWidth = options.outWidth;
+        int sourceHeight = options.outHeight;
+        if (width <= 0) width = Math.max(1, Math.round((float) sourceWidth * height / sourceHeight));
+        if (height <= 0) height = Math.max(1, Math.round((float) sourceHeight * width / sourceWidth));
+
+        int sampleSize = 1;
+        while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        // the decoder scales the subsampled image by inTargetDensity / inDensity
+        options.inScaled = true;
+        options.inDensity = sourceWidth / sampleSize;
+        options.inTargetDensity = width;
+        options.inPreferredConfig = config;
+        Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        if (bitmap == null) throw new RuntimeException("Can't decode resource " + resId);
+
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            // a different aspect ratio or a rounding error, the image is small already
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+            if (scaled != bitmap) bitmap.recycle();
+            bitmap = scaled;
+        }
+        BitmapCache.getInstance().put(key, bitmap);
+        return bitmap;
+    }
+
+    private static BitmapFactory.Options readBounds(Resources resources, int resId) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        // the size of the image itself, not scaled for the screen density
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) throw new RuntimeException("Can't decode resource " + resId);
+        return options;
+    }
+}
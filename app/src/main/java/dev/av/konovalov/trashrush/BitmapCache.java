@@ -0,0 +1,59 @@
+package dev.av.konovalov.trashrush;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * Process-wide LRU cache of the decoded bitmaps, keyed by the resource, the target size and the config.
+ * It survives surface recreation and activity restarts, so a warm resume doesn't decode anything.
+ * <p>
+ * The cached bitmaps are shared: they must not be modified or recycled.
+ */
+class BitmapCache {
+    private static final BitmapCache INSTANCE = new BitmapCache();
+
+    private final LruCache<String, Bitmap> cache;
+
+    private BitmapCache() {
+        // an eighth of the heap, the game needs a few megabytes
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    static BitmapCache getInstance() {
+        return INSTANCE;
+    }
+
+    static String key(int resId, int width, int height, Bitmap.Config config) {
+        return resId + ":" + width + "x" + height + ":" + config;
+    }
+
+    Bitmap get(String key) {
+        return cache.get(key);
+    }
+
+    void put(String key, Bitmap bitmap) {
+        cache.put(key, bitmap);
+    }
+
+    /**
+     * @param level ComponentCallbacks2.TRIM_MEMORY_* level
+     */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            // the process is likely to be killed soon
+            cache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.trimToSize(cache.size() / 2);
+        }
+        // TRIM_MEMORY_UI_HIDDEN: keep everything for the return to the game
+    }
+}
@@ -0,0 +1,167 @@
+package dev.av.konovalov.trashrush;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RenderTarget} drawing on an Android {@link Canvas}. The images are bitmaps
+ * or sprites (parts of an atlas bitmap), the paints are changed only when the requested state
+ * differs from the current one.
+ */
+class CanvasRenderTarget implements RenderTarget {
+    private final List<Bitmap> images = new ArrayList<>();
+    // the part of the bitmap, null for the whole bitmap
+    private final List<Rect> sources = new ArrayList<>();
+    // repeating shaders of the tiled images, created on the first use
+    private final List<BitmapShader> shaders = new ArrayList<>();
+    private final Matrix shaderMatrix = new Matrix();
+    private final Paint tiledPaint = new Paint();
+    private final RectF destination = new RectF();
+    private final Paint bitmapPaint = new Paint();
+    private final Paint fillPaint = new Paint();
+    private final Paint strokePaint = new Paint();
+    private final Paint pointPaint = new Paint();
+    private final Paint textPaint = new Paint();
+    private TextStyle textStyle;
+    private Canvas canvas;
+
+    CanvasRenderTarget() {
+        bitmapPaint.setAntiAlias(true);
+        // smooth sub-pixel scrolling of the pattern
+        tiledPaint.setFilterBitmap(true);
+        fillPaint.setAntiAlias(true);
+        strokePaint.setAntiAlias(true);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        pointPaint.setAntiAlias(true);
+        pointPaint.setStyle(Paint.Style.STROKE);
+        pointPaint.setStrokeCap(Paint.Cap.ROUND);
+        textPaint.setAntiAlias(true);
+    }
+
+    /**
+     * @param bitmap the image, can be null until it's loaded (see {@link #setImage})
+     * @return the id of the image
+     */
+    int addImage(Bitmap bitmap) {
+        images.add(bitmap);
+        sources.add(null);
+        shaders.add(null);
+        return images.size() - 1;
+    }
+
+    void setImage(int image, Bitmap bitmap) {
+        images.set(image, bitmap);
+        sources.set(image, null);
+        shaders.set(image, null);
+    }
+
+    /**
+     * @param source the sprite in the atlas
+     */
+    void setSprite(int image, Bitmap atlas, Rect source) {
+        images.set(image, atlas);
+        sources.set(image, source);
+        shaders.set(image, null);
+    }
+
+    void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    @Override
+    public int getImageWidth(int image) {
+        Rect source = sources.get(image);
+        return source != null ? source.width() : images.get(image).getWidth();
+    }
+
+    @Override
+    public int getImageHeight(int image) {
+        Rect source = sources.get(image);
+        return source != null ? source.height() : images.get(image).getHeight();
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        canvas.translate(dx, dy);
+    }
+
+    @Override
+    public void drawImage(int image, float x, float y) {
+        Rect source = sources.get(image);
+        if (source == null) {
+            canvas.drawBitmap(images.get(image), x, y, bitmapPaint);
+        } else {
+            destination.set(x, y, x + source.width(), y + source.height());
+            canvas.drawBitmap(images.get(image), source, destination, bitmapPaint);
+        }
+    }
+
+    @Override
+    public void fillTiled(int image, float left, float top, float right, float bottom, float originX, float originY) {
+        if (sources.get(image) != null) throw new RuntimeException("A sprite can't be tiled");
+        BitmapShader shader = shaders.get(image);
+        if (shader == null) {
+            shader = new BitmapShader(images.get(image), Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
+            shaders.set(image, shader);
+        }
+        shaderMatrix.setTranslate(originX, originY);
+        shader.setLocalMatrix(shaderMatrix);
+        if (tiledPaint.getShader() != shader) tiledPaint.setShader(shader);
+        canvas.drawRect(left, top, right, bottom, tiledPaint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, int color) {
+        if (fillPaint.getColor() != color) fillPaint.setColor(color);
+        canvas.drawRect(left, top, right, bottom, fillPaint);
+    }
+
+    @Override
+    public void strokeCircle(float centerX, float centerY, float radius, float strokeWidth, int color) {
+        if (strokePaint.getColor() != color) strokePaint.setColor(color);
+        if (strokePaint.getStrokeWidth() != strokeWidth) strokePaint.setStrokeWidth(strokeWidth);
+        canvas.drawCircle(centerX, centerY, radius, strokePaint);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, TextStyle style, int color) {
+        if (style != textStyle) {
+            textStyle = style;
+            textPaint.setTextSize(style.size);
+            textPaint.setTypeface(style.bold ? Typeface.DEFAULT_BOLD : Typeface.DEFAULT);
+            textPaint.setTextAlign(getAlign(style.align));
+        }
+        if (textPaint.getColor() != color) textPaint.setColor(color);
+        canvas.drawText(text, x, y, textPaint);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int count, float size, int color) {
+        if (pointPaint.getColor() != color) pointPaint.setColor(color);
+        if (pointPaint.getStrokeWidth() != size) pointPaint.setStrokeWidth(size);
+        canvas.drawPoints(points, 0, count * 2, pointPaint);
+    }
+
+    private static Paint.Align getAlign(int align) {
+        switch (align) {
+            case TextStyle.ALIGN_LEFT:
+                return Paint.Align.LEFT;
+            case TextStyle.ALIGN_CENTER:
+                return Paint.Align.CENTER;
+            case TextStyle.ALIGN_RIGHT:
+                return Paint.Align.RIGHT;
+            default:
+                throw new RuntimeException("Unknown text align");
+        }
+    }
+}
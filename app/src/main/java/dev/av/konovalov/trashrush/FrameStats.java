@@ -0,0 +1,67 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Locale;
+
+/**
+ * Per-phase frame timings collected by the game loop.
+ * Recording doesn't allocate or lock, so it is cheap enough to stay enabled in release builds,
+ * and the simulation and the render threads can record at the same time.
+ */
+public class FrameStats {
+
+    public enum Phase {
+        UPDATE,       // GameView.update (all simulation steps of a frame)
+        DRAW,         // GameView.draw
+        LOCK_CANVAS,  // SurfaceHolder.lockCanvas
+        POST          // SurfaceHolder.unlockCanvasAndPost
+    }
+
+    private final LogLinearHistogram[] histograms = new LogLinearHistogram[Phase.values().length];
+
+    public FrameStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LogLinearHistogram();
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param percentile in range [0, 100]
+     * @return the duration (in nanoseconds) which the given percentage of samples doesn't exceed
+     */
+    public long getPercentile(Phase phase, double percentile) {
+        return histograms[phase.ordinal()].getPercentile(percentile);
+    }
+
+    public long getMax(Phase phase) {
+        return histograms[phase.ordinal()].getMax();
+    }
+
+    public long getCount(Phase phase) {
+        return histograms[phase.ordinal()].getCount();
+    }
+
+    /**
+     * Starts a new session.
+     */
+    public void reset() {
+        for (LogLinearHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            sb.append(String.format(Locale.US, "%s: n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms\n",
+                    phase, getCount(phase),
+                    getPercentile(phase, 50) / 1e6, getPercentile(phase, 95) / 1e6,
+                    getPercentile(phase, 99) / 1e6, getMax(phase) / 1e6));
+        }
+        return sb.toString();
+    }
+}
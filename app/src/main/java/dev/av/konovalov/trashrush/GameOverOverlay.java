@@ -17,10 +17,7 @@ public class GameOverOverlay extends View {
     private GameOverListener gameOverListener;
     private Button restartButton;
     private Button menuButton;
-    private int itemsSortedTotal;
-    private float totalTreesSaved;
-    private float totalWaterSaved;
-    private float totalCo2Saved;
+    private final StatsLedger stats = new StatsLedger();
 
     public GameOverOverlay(Context context) {
         super(context);
@@ -39,11 +36,8 @@ public class GameOverOverlay extends View {
         this.gameOverListener = listener;
     }
 
-    public void updateStats(int itemsSorted, float treesSaved, float waterSaved, float co2Saved) {
-        this.itemsSortedTotal = itemsSorted;
-        this.totalTreesSaved = treesSaved;
-        this.totalWaterSaved = waterSaved;
-        this.totalCo2Saved = co2Saved;
+    public void updateStats(StatsLedger stats) {
+        stats.copyTo(this.stats);
         invalidate();
     }
 
@@ -79,7 +73,7 @@ public class GameOverOverlay extends View {
         textPaint.setColor(Color.WHITE);
         textPaint.setTextSize(40);
         float y = screenHeight / 2 - 100;
-        canvas.drawText(String.format(getContext().getString(R.string.msgNSorted), itemsSortedTotal), screenWidth / 2, y, textPaint);
+        canvas.drawText(String.format(getContext().getString(R.string.msgNSorted), stats.getTotal(StatsLedger.Outcome.SORTED)), screenWidth / 2, y, textPaint);
         y += 70;
         canvas.drawText(getContext().getString(R.string.statYouSaved), screenWidth / 2, y, textPaint);
 
@@ -87,14 +81,17 @@ public class GameOverOverlay extends View {
         {
             final float x = screenWidth / 2 - 130;
             y += 50;
-            canvas.drawText(String.format(getContext().getString(R.string.statNTrees), (int) totalTreesSaved), x, y, textPaint);
+            canvas.drawText(String.format(getContext().getString(R.string.statNTrees), (int) stats.getTreesSaved()), x, y, textPaint);
             y += 50;
-            canvas.drawText(String.format(getContext().getString(R.string.statLitersOfWater), (int) totalWaterSaved), x, y, textPaint);
+            canvas.drawText(String.format(getContext().getString(R.string.statLitersOfWater), (int) stats.getWaterSaved()), x, y, textPaint);
             y += 50;
-            canvas.drawText(String.format(getContext().getString(R.string.statCO2), (int) totalCo2Saved), x, y, textPaint);
+            canvas.drawText(String.format(getContext().getString(R.string.statCO2), (int) stats.getCo2Saved()), x, y, textPaint);
             textPaint.setTextAlign(Paint.Align.CENTER);
         }
 
+        drawBreakdown(canvas);
+        drawTimeline(canvas);
+
         if (restartButton != null) {
             restartButton.draw(canvas, paint, textPaint);
         }
@@ -103,6 +100,60 @@ public class GameOverOverlay extends View {
         }
     }
 
+    // sorted / wrong / missed items of every type on the right
+    private void drawBreakdown(Canvas canvas) {
+        float x = screenWidth * 0.72f;
+        float y = screenHeight / 2 - 100;
+        textPaint.setTextAlign(Paint.Align.LEFT);
+        textPaint.setTextSize(30);
+        for (TrashType type : TrashType.values()) {
+            int sorted = stats.getCount(StatsLedger.Outcome.SORTED, type);
+            int wrong = stats.getCount(StatsLedger.Outcome.WRONG, type);
+            int missed = stats.getCount(StatsLedger.Outcome.MISSED, type);
+            if (sorted + wrong + missed == 0) continue;
+
+            paint.setColor(type.getColor());
+            canvas.drawCircle(x, y - 10, 12, paint);
+            textPaint.setColor(Color.WHITE);
+            canvas.drawText(String.format(getContext().getString(R.string.statBreakdown), sorted, wrong, missed),
+                    x + 30, y, textPaint);
+            y += 45;
+        }
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    // a bar per StatsLedger.BUCKET_SECONDS on the left: sorted items up, wrong and missed ones down
+    private void drawTimeline(Canvas canvas) {
+        int bucketCount = stats.getBucketCount();
+        if (bucketCount == 0) return;
+
+        int maxCount = 1;
+        for (int i = 0; i < bucketCount; i++) {
+            maxCount = Math.max(maxCount, stats.getBucketTotal(i, StatsLedger.Outcome.SORTED));
+            maxCount = Math.max(maxCount, stats.getBucketTotal(i, StatsLedger.Outcome.WRONG) +
+                    stats.getBucketTotal(i, StatsLedger.Outcome.MISSED));
+        }
+
+        float left = screenWidth * 0.04f;
+        float width = screenWidth * 0.24f;
+        float baseline = screenHeight / 2f;
+        float scale = screenHeight * 0.15f / maxCount;
+        float barWidth = width / bucketCount;
+        for (int i = 0; i < bucketCount; i++) {
+            float x = left + i * barWidth;
+            float sorted = stats.getBucketTotal(i, StatsLedger.Outcome.SORTED) * scale;
+            float wrong = stats.getBucketTotal(i, StatsLedger.Outcome.WRONG) * scale;
+            float missed = stats.getBucketTotal(i, StatsLedger.Outcome.MISSED) * scale;
+
+            paint.setColor(Color.GREEN);
+            canvas.drawRect(x, baseline - sorted, x + barWidth * 0.8f, baseline, paint);
+            paint.setColor(Color.RED);
+            canvas.drawRect(x, baseline, x + barWidth * 0.8f, baseline + wrong, paint);
+            paint.setColor(Color.GRAY);
+            canvas.drawRect(x, baseline + wrong, x + barWidth * 0.8f, baseline + wrong + missed, paint);
+        }
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (event.getAction() == MotionEvent.ACTION_DOWN && gameOverListener != null) {
@@ -1,85 +1,319 @@
 package dev.av.konovalov.trashrush;
 
 import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.SurfaceHolder;
 
-public class GameThread extends Thread {
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The game loop. Frames are paced by the display vsync ({@link Choreographer}),
+ * the thread sleeps in its looper while the game is paused or there is no surface to draw on.
+ * <p>
+ * In the pipelined mode the simulation runs on a separate {@link SimulationThread}
+ * and this thread only draws, so a frame costs max(update, draw) instead of update + draw
+ * at the price of one frame of latency.
+ */
+public class GameThread extends HandlerThread implements Choreographer.FrameCallback {
+    private static final String TAG = "GameThread";
+
+    // how many frames the simulation can be ahead of the renderer in the pipelined mode
+    private static final int PIPELINE_DEPTH = 1;
+
+    // target frame rates
+    public static final int FRAME_RATE_DISPLAY_MAX = 0;
+    public static final int FRAME_RATE_60 = 60;
+    public static final int FRAME_RATE_30 = 30;
+    // vsync gaps above it are pauses or dropped frames, not the display period
+    private static final long MAX_VSYNC_PERIOD_NS = 50000000;
 
     private final SurfaceHolder surfaceHolder;
     private final GameView gameView;
-    private boolean running = true;
+    private final FrameStats frameStats = new FrameStats();
+    private final FramePipeline pipeline = new FramePipeline(PIPELINE_DEPTH);
+    // null if the simulation runs on this thread
+    private final SimulationThread simulationThread;
+    private Handler handler;
+    private Choreographer choreographer;
+
+    // the fields below are accessed on this thread only
     private boolean paused = false;
-    private long lastTime;
+    private boolean surfaceReady = false;
+    private boolean frameScheduled = false;
+    private boolean clockStopped = true;
+    // the measured display refresh period, 0 until the first two vsyncs
+    private long vsyncPeriod = 0;
+    private long lastVsyncTime = 0;
+    // vsyncs since the last drawn frame
+    private int vsyncsSkipped = 0;
+    private final FixedStepClock clock = new FixedStepClock();
+    private RenderBackend backend = RenderBackend.select();
+    // the current surface has been drawn on a hardware canvas, the CPU can't reliably lock it any more
+    private boolean surfaceUsedByGpu = false;
+    private volatile int targetFrameRate;
 
-    public GameThread(SurfaceHolder holder, GameView gameView) {
+    /**
+     * @param pipelined run the simulation and the rendering on separate threads
+     */
+    public GameThread(SurfaceHolder holder, GameView gameView, boolean pipelined) {
+        super("GameThread");
         this.surfaceHolder = holder;
         this.gameView = gameView;
-        this.lastTime = System.nanoTime();
+        simulationThread = pipelined ? new SimulationThread(gameView, pipeline, frameStats) : null;
+        setTargetFrameRate(FRAME_RATE_DISPLAY_MAX);
     }
 
-    public void requestStop() {
-        this.running = false;
-        synchronized (this) {
-            notify();
+    @Override
+    public synchronized void start() {
+        super.start();
+        handler = new Handler(getLooper());
+        if (simulationThread != null) {
+            // it stays paused until the first frame is scheduled
+            simulationThread.start();
         }
     }
 
+    @Override
+    protected void onLooperPrepared() {
+        // Choreographer is bound to the looper of the calling thread
+        choreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * @param fps one of FRAME_RATE_* constants (or any other positive value)
+     */
+    public void setTargetFrameRate(int fps) {
+        targetFrameRate = Math.max(fps, 0);
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    public void requestStop() {
+        handler.post(() -> {
+            cancelFrame();
+            if (simulationThread != null) {
+                simulationThread.interrupt();
+                boolean retry = true;
+                while (retry) {
+                    try {
+                        simulationThread.join();
+                        retry = false;
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            quitSafely();
+        });
+    }
+
     public void requestPause() {
-        this.paused = true;
+        handler.post(() -> {
+            if (!paused && frameStats.getCount(FrameStats.Phase.DRAW) > 0) {
+                Log.d(TAG, "Frame stats (" + backend + " canvas, " + (simulationThread != null ? "pipelined" : "inline")
+                        + "):\n" + frameStats);
+            }
+            paused = true;
+            cancelFrame();
+        });
     }
 
     public void requestResume() {
-        if (this.paused) {
-            this.paused = false;
-            synchronized (this) {
-                notify();
+        handler.post(() -> {
+            if (paused) {
+                paused = false;
+                scheduleFrame();
             }
-        }
+        });
     }
 
-    @Override
-    public void run() {
-        while (running) {
+    public void onSurfaceCreated() {
+        handler.post(() -> {
+            surfaceReady = true;
+            surfaceUsedByGpu = false;
             if (paused) {
-                try {
-                    synchronized (this) {
-                        wait();
+                // show the frozen game under the overlays
+                if (simulationThread == null) {
+                    RenderSnapshot snapshot = pipeline.pollFree();
+                    if (snapshot != null) {
+                        gameView.writeSnapshot(snapshot);
+                        pipeline.submit(snapshot);
                     }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
                 }
-                lastTime = System.nanoTime();
-                continue;
+                drawFrame(1.0f);
+            } else {
+                scheduleFrame();
             }
+        });
+    }
 
-            long currentTime = System.nanoTime();
-            float deltaTime = (currentTime - lastTime) / 1000000000.0f;
-            lastTime = currentTime;
+    /**
+     * Blocks until the thread stops using the surface.
+     */
+    public void onSurfaceDestroyed() {
+        CountDownLatch released = new CountDownLatch(1);
+        handler.post(() -> {
+            surfaceReady = false;
+            cancelFrame();
+            released.countDown();
+        });
+        boolean retry = true;
+        while (retry) {
+            try {
+                released.await();
+                retry = false;
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-            gameView.update(deltaTime);
+    private void scheduleFrame() {
+        if (frameScheduled || paused || !surfaceReady) return;
+        if (clockStopped) {
+            // the first frame after a pause - don't simulate the time we were sleeping
+            if (simulationThread != null) {
+                simulationThread.resumeSimulation();
+            } else {
+                clock.reset();
+                clock.advance(System.nanoTime());
+            }
+            clockStopped = false;
+        }
+        choreographer.postFrameCallback(this);
+        frameScheduled = true;
+    }
 
-            Canvas canvas = null;
-            try {
-                canvas = surfaceHolder.lockCanvas();
-                if (canvas != null) {
-                    synchronized (surfaceHolder) {
-                        gameView.draw(canvas);
-                    }
-                }
-            } finally {
-                if (canvas != null) {
-                    surfaceHolder.unlockCanvasAndPost(canvas);
-                }
+    private void cancelFrame() {
+        if (frameScheduled) {
+            choreographer.removeFrameCallback(this);
+            frameScheduled = false;
+        }
+        // the gap to the next vsync will be a pause, not a refresh period
+        lastVsyncTime = 0;
+        if (!clockStopped) {
+            if (simulationThread != null) {
+                // the game world can be modified (e.g. relayouted) only while the simulation is paused
+                simulationThread.pauseSimulation();
             }
+            clockStopped = true;
+        }
+    }
 
-            boolean limitFPS = false;
-            if (limitFPS) {
-                try {
-                    sleep(16); // ~60 FPS
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (paused || !surfaceReady) return;
+
+        measureVsyncPeriod(frameTimeNanos);
+        if (++vsyncsSkipped < getVsyncsPerFrame()) {
+            // faster than the target frame rate - wait for the next vsync
+            scheduleFrame();
+            return;
+        }
+        vsyncsSkipped = 0;
+
+        if (simulationThread == null) {
+            updateInline(frameTimeNanos);
+            drawFrame(clock.getInterpolation());
+        } else {
+            // the simulation thread is already preparing the next frame
+            drawFrame(-1);
+        }
+
+        scheduleFrame();
+    }
+
+    private void measureVsyncPeriod(long frameTimeNanos) {
+        long gap = frameTimeNanos - lastVsyncTime;
+        lastVsyncTime = frameTimeNanos;
+        if (gap <= 0 || gap > MAX_VSYNC_PERIOD_NS) return;
+        if (vsyncPeriod == 0) {
+            vsyncPeriod = gap;
+        } else if (gap < vsyncPeriod * 3 / 2) {
+            // a late callback spans two periods, only the regular gaps are averaged
+            vsyncPeriod += (gap - vsyncPeriod) / 8;
+        }
+    }
+
+    /**
+     * @return how many vsyncs a frame at the target frame rate lasts, whole vsyncs only
+     * so the frames are evenly paced on any refresh rate
+     */
+    private int getVsyncsPerFrame() {
+        int fps = targetFrameRate;
+        if (fps == FRAME_RATE_DISPLAY_MAX || vsyncPeriod == 0) return 1;
+        return (int) Math.max(1, Math.round(1e9 / fps / vsyncPeriod));
+    }
+
+    private void updateInline(long frameTimeNanos) {
+        long updateStart = System.nanoTime();
+        // the callback may be delivered late, the clock handles vsync timestamps in the past
+        int steps = clock.advance(frameTimeNanos);
+        if (steps == 0) return;
+        for (int i = 0; i < steps; i++) {
+            gameView.update(FixedStepClock.STEP);
+        }
+        // never null here: the renderer holds one snapshot at most
+        RenderSnapshot snapshot = pipeline.pollFree();
+        gameView.writeSnapshot(snapshot);
+        pipeline.submit(snapshot);
+        frameStats.record(FrameStats.Phase.UPDATE, System.nanoTime() - updateStart);
+    }
+
+    /**
+     * @param interpolation position between the previous and the current simulation step,
+     *                      negative to use the one captured with the snapshot
+     */
+    private void drawFrame(float interpolation) {
+        RenderSnapshot frame = pipeline.acquire();
+        if (frame == null) return;
+        if (interpolation < 0) interpolation = frame.interpolation;
+
+        Canvas canvas = null;
+        try {
+            long lockStart = System.nanoTime();
+            canvas = lockCanvas();
+            long drawStart = System.nanoTime();
+            frameStats.record(FrameStats.Phase.LOCK_CANVAS, drawStart - lockStart);
+            if (canvas != null) {
+                synchronized (surfaceHolder) {
+                    gameView.draw(canvas, frame, interpolation);
                 }
+                frameStats.record(FrameStats.Phase.DRAW, System.nanoTime() - drawStart);
+            }
+        } finally {
+            if (canvas != null) {
+                long postStart = System.nanoTime();
+                backend.unlockCanvasAndPost(surfaceHolder, canvas);
+                frameStats.record(FrameStats.Phase.POST, System.nanoTime() - postStart);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the canvas or null if the frame can't be drawn
+     */
+    private Canvas lockCanvas() {
+        try {
+            Canvas canvas = backend.lockCanvas(surfaceHolder);
+            if (backend == RenderBackend.HARDWARE) surfaceUsedByGpu = true;
+            return canvas;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            if (backend == RenderBackend.SOFTWARE) throw e;
+            // stay with the software canvas from now on
+            Log.w(TAG, "Can't lock a hardware canvas, falling back to software", e);
+            backend = RenderBackend.SOFTWARE;
+            if (!surfaceUsedByGpu) return backend.lockCanvas(surfaceHolder);
+            // give up this surface: the game waits for a new one as if it was destroyed
+            surfaceReady = false;
+            cancelFrame();
+            return null;
+        }
+    }
+}
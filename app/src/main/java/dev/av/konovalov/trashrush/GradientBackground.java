@@ -0,0 +1,37 @@
+package dev.av.konovalov.trashrush;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+/**
+ * Vertical gradient backgrounds of the screens. They are drawn with a shader
+ * instead of being kept in screen-sized bitmaps, the shader is recreated only when the height changes.
+ * <p>
+ * An instance is used by a single thread: GAME by the game thread, MENU by the UI thread.
+ */
+class GradientBackground {
+    static final GradientBackground GAME = new GradientBackground(Color.rgb(30, 40, 60), Color.rgb(30, 100, 160));
+    static final GradientBackground MENU = new GradientBackground(Color.rgb(30, 50, 100), Color.rgb(110, 150, 255));
+
+    private final int topColor, bottomColor;
+    private final Paint paint = new Paint();
+    private int height = -1;
+
+    private GradientBackground(int topColor, int bottomColor) {
+        this.topColor = topColor;
+        this.bottomColor = bottomColor;
+        // no banding on 16-bit surfaces
+        paint.setDither(true);
+    }
+
+    void draw(Canvas canvas, int width, int height) {
+        if (height != this.height) {
+            paint.setShader(new LinearGradient(0, 0, 0, height, topColor, bottomColor, Shader.TileMode.CLAMP));
+            this.height = height;
+        }
+        canvas.drawRect(0, 0, width, height, paint);
+    }
+}
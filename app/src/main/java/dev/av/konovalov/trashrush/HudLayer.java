@@ -0,0 +1,126 @@
+package dev.av.konovalov.trashrush;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Typeface;
+
+/**
+ * The game header kept in an offscreen bitmap. The bitmap is redrawn only when a shown value
+ * changes (money, level, the displayed second or a saved total), every other frame just blits it.
+ * Only the in-level progress, which moves every frame, is drawn directly (see {@link SceneRenderer}).
+ */
+class HudLayer {
+    // the statistics lines go a bit below the panel on short screens
+    private static final int MIN_HEIGHT = 160;
+
+    private final String levelFormat;
+    private final String timeFormat;
+    private final String treesFormat;
+    private final String waterFormat;
+    private final String co2Format;
+
+    private final Paint paint = new Paint();
+    private final Paint textPaint = new Paint();
+    private final Paint smallTextPaint = new Paint();
+
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+    private float width, panelHeight;
+    private boolean dirty = true;
+
+    // the values the bitmap shows
+    private int money, level, time, trees, water, co2;
+
+    HudLayer(Context context) {
+        levelFormat = context.getString(R.string.gameHeaderLevel);
+        timeFormat = context.getString(R.string.gameHeaderTime);
+        treesFormat = context.getString(R.string.savedTrees);
+        waterFormat = context.getString(R.string.savedWater);
+        co2Format = context.getString(R.string.savedCO2);
+
+        paint.setAntiAlias(true);
+
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(30);
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        textPaint.setAntiAlias(true);
+
+        smallTextPaint.setColor(Color.GREEN);
+        smallTextPaint.setTextSize(24);
+        smallTextPaint.setAntiAlias(true);
+    }
+
+    /**
+     * (Re)creates the bitmap for the new screen size.
+     */
+    void setSize(float screenWidth, float uiZoneHeight) {
+        if (bitmap != null) bitmap.recycle();
+        width = screenWidth;
+        panelHeight = uiZoneHeight;
+        int height = Math.max((int) Math.ceil(uiZoneHeight), MIN_HEIGHT);
+        bitmap = Bitmap.createBitmap((int) screenWidth, height, Bitmap.Config.ARGB_8888);
+        bitmapCanvas = new Canvas(bitmap);
+        dirty = true;
+    }
+
+    /**
+     * Redraws the bitmap if a shown value of the frame differs from the drawn one.
+     */
+    void update(RenderSnapshot frame) {
+        int newTime = (int) frame.gameTime;
+        int newTrees = (int) frame.treesSaved;
+        int newWater = (int) frame.waterSaved;
+        int newCo2 = (int) frame.co2Saved;
+        if (dirty || frame.money != money || frame.level != level || newTime != time ||
+                newTrees != trees || newWater != water || newCo2 != co2) {
+            money = frame.money;
+            level = frame.level;
+            time = newTime;
+            trees = newTrees;
+            water = newWater;
+            co2 = newCo2;
+            redraw();
+            dirty = false;
+        }
+    }
+
+    Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    private void redraw() {
+        Canvas canvas = bitmapCanvas;
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+
+        // top panel background
+        paint.setColor(Color.argb(200, 0, 0, 0));
+        canvas.drawRect(0, 0, width, panelHeight, paint);
+
+        // score
+        textPaint.setTextAlign(Paint.Align.LEFT);
+        canvas.drawText("\uD83D\uDCB0 " + money, 20, 50, textPaint);
+
+        // level
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        canvas.drawText(String.format(levelFormat, level), width / 2, 50, textPaint);
+
+        // time
+        textPaint.setTextAlign(Paint.Align.RIGHT);
+        canvas.drawText(String.format(timeFormat, time / 60, time % 60), width - 10, 50, textPaint);
+
+        // statistics
+        canvas.drawText(String.format(treesFormat, trees), width - 150, 90, smallTextPaint);
+        canvas.drawText(String.format(waterFormat, water), width - 150, 120, smallTextPaint);
+        canvas.drawText(String.format(co2Format, co2), width - 150, 150, smallTextPaint);
+
+        // in-level progress track, the bar itself is drawn every frame
+        float progressX = width * 0.1f;
+        float progressY = panelHeight - 10;
+        paint.setColor(Color.argb(100, 255, 255, 255));
+        canvas.drawRect(progressX, progressY - 5, progressX + width * 0.8f, progressY + 5, paint);
+    }
+}
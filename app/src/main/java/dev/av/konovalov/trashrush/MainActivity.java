@@ -9,6 +9,11 @@ import android.view.WindowManager;
 import android.widget.FrameLayout;
 
 public class MainActivity extends Activity {
+    /**
+     * "on" or "off" forces the pipelined game loop, e.g.
+     * adb shell am start -n dev.av.konovalov.trashrush/.MainActivity --es pipeline off
+     */
+    public static final String EXTRA_PIPELINE = "pipeline";
 
     private GameView gameView;
     private MainMenuView mainMenuView;
@@ -45,11 +50,11 @@ public class MainActivity extends Activity {
             }
         });
 
-        gameView = new GameView(this);
+        gameView = new GameView(this, getPipelineMode());
         gameView.setGameEventListener(new GameView.GameEventListener() {
             @Override
-            public void onGameOver(int itemsSorted, float treesSaved, float waterSaved, float co2Saved) {
-                runOnUiThread(() -> showGameOver(itemsSorted, treesSaved, waterSaved, co2Saved));
+            public void onGameOver(StatsLedger stats) {
+                runOnUiThread(() -> showGameOver(stats));
             }
 
             @Override
@@ -78,6 +83,13 @@ public class MainActivity extends Activity {
         switchToMenu();
     }
 
+    private int getPipelineMode() {
+        String pipeline = getIntent().getStringExtra(EXTRA_PIPELINE);
+        if ("on".equals(pipeline)) return GameView.PIPELINE_ON;
+        if ("off".equals(pipeline)) return GameView.PIPELINE_OFF;
+        return GameView.PIPELINE_AUTO;
+    }
+
     private void switchToMenu() {
         currentState = AppState.MENU;
         mainMenuView.setVisibility(View.VISIBLE);
@@ -86,9 +98,9 @@ public class MainActivity extends Activity {
         gameView.pauseGame();
     }
 
-    private void showGameOver(int itemsSorted, float treesSaved, float waterSaved, float co2Saved) {
+    private void showGameOver(StatsLedger stats) {
         currentState = AppState.GAME_OVER;
-        gameOverOverlay.updateStats(itemsSorted, treesSaved, waterSaved, co2Saved);
+        gameOverOverlay.updateStats(stats);
         gameOverOverlay.setVisibility(View.VISIBLE);
         gameView.pauseGame();
     }
@@ -125,6 +137,20 @@ public class MainActivity extends Activity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (gameView != null) {
+            gameView.release();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        BitmapCache.getInstance().trimMemory(level);
+    }
+
     @Override
     public void onBackPressed() {
         if (currentState == AppState.GAME) {
@@ -2,7 +2,6 @@ package dev.av.konovalov.trashrush;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -21,7 +20,6 @@ public class MainMenuView extends View {
     private MenuListener menuListener;
     private final Paint paint;
     private final Paint textPaint;
-    private Bitmap backgroundBitmap;
     private Bitmap titleBitmap;
     private boolean showContinueButton = false;
 
@@ -85,22 +83,23 @@ public class MainMenuView extends View {
     public void setContinueButtonVisibility(boolean show) {
         this.showContinueButton = show;
         if (getWidth() > 0 && getHeight() > 0) {
-            onSizeChanged(getWidth(), getHeight(), getWidth(), getHeight());
+            layoutButtons(getWidth(), getHeight());
         }
         invalidate();
     }
 
     private void loadGraphics(int screenWidth, int screenHeight) {
-        titleBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.title);
-        titleBitmap = Utility.fitBitmap(titleBitmap, screenWidth, screenHeight / 2);
-
-        backgroundBitmap = createGradientBackground(screenWidth, screenHeight);
+        titleBitmap = AssetLoader.decodeToFit(getResources(), R.drawable.title, screenWidth, screenHeight / 2);
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
+        layoutButtons(w, h);
+        loadGraphics(w, h);
+    }
 
+    private void layoutButtons(int w, int h) {
         float buttonWidth = w * 0.6f;
         float buttonHeight = h * 0.12f;
 
@@ -150,17 +149,13 @@ public class MainMenuView extends View {
                     Color.parseColor("#F44336")
             );
         }
-
-        loadGraphics(w, h);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (backgroundBitmap != null) {
-            canvas.drawBitmap(backgroundBitmap, 0, 0, paint);
-        }
+        GradientBackground.MENU.draw(canvas, getWidth(), getHeight());
         if (titleBitmap != null) {
             int x = (canvas.getWidth() - titleBitmap.getWidth()) / 2;
             canvas.drawBitmap(titleBitmap, x, 0, paint);
@@ -200,27 +195,4 @@ public class MainMenuView extends View {
         }
         return true;
     }
-
-    private Bitmap createGradientBackground(int width, int height) {
-        if (width <= 0 || height <= 0) {
-            width = getResources().getDisplayMetrics().widthPixels;
-            height = getResources().getDisplayMetrics().heightPixels;
-        }
-
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        Paint p = new Paint();
-
-        for (int i = 0; i < height; i++) {
-            float ratio = (float) i / height;
-            int blue = 100 + (int) (155 * ratio);
-            int green = 50 + (int) (100 * ratio);
-            int red = 30 + (int) (80 * ratio);
-
-            p.setColor(Color.rgb(red, green, blue));
-            canvas.drawRect(0, i, width, i + 1, p);
-        }
-
-        return bitmap;
-    }
-}
\ No newline at end of file
+}
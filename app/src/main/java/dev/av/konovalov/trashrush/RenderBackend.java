@@ -0,0 +1,63 @@
+package dev.av.konovalov.trashrush;
+
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.view.SurfaceHolder;
+
+/**
+ * The way a frame canvas is obtained from the surface: a software-rasterized one
+ * or (API 26+) a hardware-accelerated one, where bitmap blits and antialiased shapes
+ * are done by the GPU.
+ */
+abstract class RenderBackend {
+    static final RenderBackend SOFTWARE = new RenderBackend("software") {
+        @Override
+        Canvas lockCanvas(SurfaceHolder holder) {
+            return holder.lockCanvas();
+        }
+    };
+
+    static final RenderBackend HARDWARE = new RenderBackend("hardware") {
+        @TargetApi(Build.VERSION_CODES.O)
+        @Override
+        Canvas lockCanvas(SurfaceHolder holder) {
+            return holder.lockHardwareCanvas();
+        }
+    };
+
+    // the GPU is emulated in software there, the hardware canvas is slower than the plain one
+    private static final String[] SOFTWARE_GPU_HARDWARE = {"goldfish", "ranchu", "vbox86"};
+
+    private final String name;
+
+    private RenderBackend(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the backend which is expected to be faster on this device
+     */
+    static RenderBackend select() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return SOFTWARE;
+        for (String hardware : SOFTWARE_GPU_HARDWARE) {
+            if (hardware.equals(Build.HARDWARE)) return SOFTWARE;
+        }
+        return HARDWARE;
+    }
+
+    /**
+     * @throws IllegalStateException    if the backend can't be used with the surface
+     * @throws IllegalArgumentException if the surface is already locked or invalid
+     */
+    abstract Canvas lockCanvas(SurfaceHolder holder);
+
+    void unlockCanvasAndPost(SurfaceHolder holder, Canvas canvas) {
+        holder.unlockCanvasAndPost(canvas);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
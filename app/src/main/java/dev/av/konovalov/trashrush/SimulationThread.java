@@ -0,0 +1,98 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * Runs the simulation ahead of the renderer when the game loop is pipelined:
+ * while {@link GameThread} draws frame N, this thread prepares frame N + 1.
+ * It's paced by the renderer through the back-pressure of the {@link FramePipeline}.
+ */
+class SimulationThread extends Thread {
+    private final Simulation simulation;
+    private final FramePipeline pipeline;
+    private final FrameStats frameStats;
+    private final FixedStepClock clock = new FixedStepClock();
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private boolean paused = true;
+    private boolean busy = false;
+
+    SimulationThread(Simulation simulation, FramePipeline pipeline, FrameStats frameStats) {
+        super("SimulationThread");
+        this.simulation = simulation;
+        this.pipeline = pipeline;
+        this.frameStats = frameStats;
+    }
+
+    /**
+     * Blocks until the thread stops touching the game world.
+     * Must be called from the render thread, as well as {@link #resumeSimulation()}.
+     */
+    void pauseSimulation() {
+        synchronized (lock) {
+            paused = true;
+            while (busy) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    void resumeSimulation() {
+        synchronized (lock) {
+            if (paused) {
+                paused = false;
+                // don't simulate the time we were sleeping
+                clock.reset();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                // waits here while the renderer is behind
+                RenderSnapshot snapshot = pipeline.takeFree();
+                synchronized (lock) {
+                    while (paused) {
+                        lock.wait();
+                    }
+                    busy = true;
+                }
+                try {
+                    long updateStart = System.nanoTime();
+                    int steps = clock.advance(updateStart);
+                    for (int i = 0; i < steps; i++) {
+                        simulation.update(FixedStepClock.STEP);
+                    }
+                    if (steps > 0) {
+                        frameStats.record(FrameStats.Phase.UPDATE, System.nanoTime() - updateStart);
+                    }
+                    simulation.writeSnapshot(snapshot);
+                    snapshot.interpolation = clock.getInterpolation();
+                } finally {
+                    synchronized (lock) {
+                        busy = false;
+                        lock.notifyAll();
+                    }
+                }
+                pipeline.submit(snapshot);
+            }
+        } catch (InterruptedException e) {
+            // the game is being closed
+        }
+    }
+
+    /**
+     * The game state advanced by the thread (the game view).
+     */
+    interface Simulation {
+        void update(float deltaTime);
+
+        void writeSnapshot(RenderSnapshot snapshot);
+    }
+}
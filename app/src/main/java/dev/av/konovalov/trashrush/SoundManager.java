@@ -14,12 +14,12 @@ public class SoundManager {
     private HashMap<Integer, Integer> soundMap;
     private boolean soundsEnabled = false;
 
-    public static final int SOUND_CORRECT = 1;
-    public static final int SOUND_WRONG = 2;
-    public static final int SOUND_MISS = 3;
-    public static final int SOUND_LEVEL_UP = 4;
-    public static final int SOUND_GAME_OVER = 5;
-    public static final int SOUND_CLICK = 6;
+    public static final int SOUND_CORRECT = GameWorld.SOUND_CORRECT;
+    public static final int SOUND_WRONG = GameWorld.SOUND_WRONG;
+    public static final int SOUND_MISS = GameWorld.SOUND_MISS;
+    public static final int SOUND_LEVEL_UP = GameWorld.SOUND_LEVEL_UP;
+    public static final int SOUND_GAME_OVER = GameWorld.SOUND_GAME_OVER;
+    public static final int SOUND_CLICK = GameWorld.SOUND_CLICK;
 
     public SoundManager(Context context) {
         initSoundPool();
@@ -0,0 +1,55 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SimulationThreadTest {
+    @Test
+    public void pauseWaitsForTheStepInProgress() throws InterruptedException {
+        CountDownLatch stepStarted = new CountDownLatch(1);
+        CountDownLatch stepCanFinish = new CountDownLatch(1);
+        AtomicInteger stepsFinished = new AtomicInteger();
+        SimulationThread thread = new SimulationThread(new SimulationThread.Simulation() {
+            @Override
+            public void update(float deltaTime) {
+            }
+
+            @Override
+            public void writeSnapshot(RenderSnapshot snapshot) {
+                stepStarted.countDown();
+                try {
+                    stepCanFinish.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                stepsFinished.incrementAndGet();
+            }
+        }, new FramePipeline(1), new FrameStats());
+        thread.start();
+        thread.resumeSimulation();
+        assertTrue(stepStarted.await(1, TimeUnit.SECONDS));
+
+        Thread renderer = new Thread(thread::pauseSimulation);
+        renderer.start();
+        renderer.join(100);
+        assertTrue(renderer.isAlive());
+
+        stepCanFinish.countDown();
+        renderer.join(1000);
+        assertFalse(renderer.isAlive());
+        assertEquals(1, stepsFinished.get());
+
+        // paused, the next snapshot is not written
+        Thread.sleep(100);
+        assertEquals(1, stepsFinished.get());
+
+        thread.interrupt();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,24 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// JMH benchmarks of the simulation hot paths, run with:
+//   ./gradlew :benchmarks:jmh
+// the results are written to build/results/jmh/results.txt
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+}
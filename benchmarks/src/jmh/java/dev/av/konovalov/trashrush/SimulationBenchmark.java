@@ -0,0 +1,186 @@
+package dev.av.konovalov.trashrush;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame work of {@link GameWorld} with the given number of live trash items and particles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimulationBenchmark {
+    private static final float STEP = 1.0f / 120.0f;
+    private static final float SCREEN_WIDTH = 1920;
+    private static final float BELT_Y = 300;
+    private static final float BELT_HEIGHT = 450;
+    private static final int TRASH_SIZE = 140;
+    // one second of the game, the items placed by populate() don't reach the right edge in it
+    private static final int STEPS_FROM_FRESH_WORLD = 120;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int count;
+
+    private final Random random = new Random(42);
+    private final InputQueue inputs = new InputQueue();
+    private GameWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] variants = new int[TrashType.values().length];
+        Arrays.fill(variants, 2);
+        // the pool has one spare item for spawnAndRemove
+        world = new GameWorld(new GameWorld.Listener() {
+            @Override
+            public void onSound(int soundId) {
+            }
+
+            @Override
+            public String formatMessage(GameWorld.MessageType type, int value) {
+                return "";
+            }
+
+            @Override
+            public void onGameOver(StatsLedger stats) {
+            }
+        }, variants, random, count + 1, count);
+        world.setLayout(SCREEN_WIDTH, 1080, BELT_Y, BELT_HEIGHT, 300, TRASH_SIZE);
+
+        List<Bin> bins = new ArrayList<>();
+        for (TrashType type : TrashType.values()) {
+            bins.add(new Bin(0, BELT_Y + BELT_HEIGHT + 50, 150, 200, type));
+        }
+        world.setBins(bins);
+        populate();
+    }
+
+    /**
+     * Starts a new game with count items on the belt and count particles.
+     */
+    void populate() {
+        world.requestRestart();
+        world.step(STEP, inputs);
+
+        TrashStore items = world.getTrashItems();
+        for (int i = 0; i < count; i++) {
+            int item = spawn();
+            items.x[item] = random.nextFloat() * (SCREEN_WIDTH - TRASH_SIZE * 2);
+        }
+        topUpParticles();
+    }
+
+    // the items must stay on the screen during the whole measurement, so the ones
+    // reaching the right edge are moved back to the left one
+    private void wrapItems() {
+        TrashStore items = world.getTrashItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.x[i] > SCREEN_WIDTH - TRASH_SIZE) {
+                items.x[i] -= SCREEN_WIDTH - TRASH_SIZE;
+            }
+        }
+    }
+
+    /**
+     * @return the index of a new trash item
+     */
+    private int spawn() {
+        int handle = world.spawnTrash();
+        if (handle == TrashStore.NONE) throw new RuntimeException("The trash store is full");
+        return world.getTrashItems().indexOf(handle);
+    }
+
+    private void topUpParticles() {
+        ParticleSystem particles = world.getParticles();
+        while (particles.size() < count) {
+            int n = Math.min(20, count - particles.size());
+            world.createParticleEffect(random.nextFloat() * SCREEN_WIDTH, BELT_Y, GameWorld.COLOR_RED, n, 1.0f);
+        }
+    }
+
+    /**
+     * The update of all trash items: movement, leaving the screen, the grid rebuild and bin collisions.
+     */
+    @Benchmark
+    public void trashItems() {
+        world.updateTrashItems(STEP);
+        wrapItems();
+    }
+
+    /**
+     * The brute force collision check of every item against every bin (the simulation uses the grid).
+     */
+    @Benchmark
+    public int collisions() {
+        int hits = 0;
+        TrashStore items = world.getTrashItems();
+        for (int i = 0; i < items.size(); i++) {
+            for (Bin bin : world.getBins()) {
+                if (items.collidesWith(i, bin)) hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Particle update and removal. Expired particles are re-emitted, so the cost of spawning
+     * them is included (just like in the game, where they are spawned in bursts).
+     */
+    @Benchmark
+    public void particles() {
+        world.updateParticles(STEP);
+        topUpParticles();
+    }
+
+    /**
+     * A single spawn (including the insertion in the drawing order), a removal
+     * and the compaction which frees its slot again, as in a simulation step.
+     */
+    @Benchmark
+    public void spawnAndRemove() {
+        TrashStore items = world.getTrashItems();
+        world.removeTrashItem(spawn());
+        items.compact();
+    }
+
+    /**
+     * The whole simulation step. The steps advance the game time and the level, and the items
+     * leave the screen, so every invocation plays the same second from a fresh world
+     * instead of a workload drifting from iteration to iteration. The score is per step.
+     */
+    @Benchmark
+    @OperationsPerInvocation(STEPS_FROM_FRESH_WORLD)
+    public void step(FreshWorld fresh) {
+        for (int i = 0; i < STEPS_FROM_FRESH_WORLD; i++) {
+            fresh.world.step(STEP, fresh.inputs);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FreshWorld {
+        private GameWorld world;
+        private InputQueue inputs;
+
+        // an invocation is long enough (STEPS_FROM_FRESH_WORLD steps) for the per-invocation setup
+        @Setup(Level.Invocation)
+        public void setUp(SimulationBenchmark benchmark) {
+            // JMH passes a separate instance of the benchmark state here, not the one running step()
+            benchmark.populate();
+            world = benchmark.world;
+            inputs = benchmark.inputs;
+        }
+    }
+}
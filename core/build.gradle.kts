@@ -0,0 +1,15 @@
+plugins {
+    `java-library`
+}
+
+// Game rules and simulation. This module must not depend on Android,
+// so it can be tested and benchmarked on a plain JVM.
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -1,23 +1,19 @@
 package dev.av.konovalov.trashrush;
 
-import android.graphics.Bitmap;
-
 public class Bin {
     public float x, y;
     public float width, height;
-    public Bitmap bitmap;
 
     public TrashType acceptedType;
     public int itemsSorted = 0;
     private boolean isVisible = false;
 
-    public Bin(float x, float y, Bitmap bitmap, TrashType acceptedType) {
+    public Bin(float x, float y, float width, float height, TrashType acceptedType) {
         this.x = x;
         this.y = y;
-        this.bitmap = bitmap;
+        this.width = width;
+        this.height = height;
         this.acceptedType = acceptedType;
-        this.width = bitmap.getWidth();
-        this.height = bitmap.getHeight();
     }
 
     public boolean isVisible() {
@@ -32,7 +28,7 @@ public class Bin {
         isVisible = false;
     }
 
-    public boolean accepts(TrashItem item) {
-        return isVisible && item.type == acceptedType;
+    public boolean accepts(TrashType type) {
+        return isVisible && type == acceptedType;
     }
-}
\ No newline at end of file
+}
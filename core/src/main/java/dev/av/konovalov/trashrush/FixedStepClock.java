@@ -0,0 +1,55 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * Turns the wall-clock time into a number of fixed simulation steps.
+ */
+public class FixedStepClock {
+    // the simulation always advances in fixed steps, independent of the frame rate
+    public static final float STEP = 1.0f / 120.0f;
+    // limits the catch-up after a long stall, the rest of the backlog is dropped
+    private static final int MAX_STEPS_PER_FRAME = 8;
+
+    private long lastTime = 0;
+    private float accumulator = 0;
+
+    /**
+     * Forgets the elapsed time, e.g. after a pause - the next call to advance just starts the clock.
+     */
+    public void reset() {
+        lastTime = 0;
+        accumulator = 0;
+    }
+
+    /**
+     * @param nanoTime the current time (System.nanoTime() time base)
+     * @return how many steps must be simulated to catch up with the given time
+     */
+    public int advance(long nanoTime) {
+        if (lastTime == 0) {
+            lastTime = nanoTime;
+            return 0;
+        }
+        // e.g. vsync timestamps can be slightly in the past
+        long currentTime = Math.max(nanoTime, lastTime);
+        accumulator += (currentTime - lastTime) / 1000000000.0f;
+        lastTime = currentTime;
+
+        int steps = 0;
+        while (accumulator >= STEP && steps < MAX_STEPS_PER_FRAME) {
+            accumulator -= STEP;
+            steps++;
+        }
+        if (steps == MAX_STEPS_PER_FRAME) {
+            // we can't keep up (or the thread was stalled) - don't try to replay the whole backlog
+            accumulator %= STEP;
+        }
+        return steps;
+    }
+
+    /**
+     * @return how far we are between the last two simulation states (0..1)
+     */
+    public float getInterpolation() {
+        return accumulator / STEP;
+    }
+}
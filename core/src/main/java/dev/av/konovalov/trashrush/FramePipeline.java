@@ -0,0 +1,65 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded hand-off of render snapshots from the simulation to the renderer.
+ * <p>
+ * There are depth + 1 snapshots in total: the renderer holds one, so the simulation can be
+ * at most depth frames ahead. When it gets there, {@link #takeFree()} blocks until the
+ * renderer releases a snapshot (back-pressure).
+ * <p>
+ * There must be one producer thread and one consumer thread (it can be the same thread).
+ */
+public class FramePipeline {
+    private final BlockingQueue<RenderSnapshot> free;
+    private final BlockingQueue<RenderSnapshot> ready;
+    // owned by the consumer
+    private RenderSnapshot current = null;
+
+    public FramePipeline(int depth) {
+        free = new ArrayBlockingQueue<>(depth + 1);
+        ready = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            free.add(new RenderSnapshot());
+        }
+    }
+
+    /**
+     * Returns a snapshot to fill, waits while all of them are in flight.
+     */
+    public RenderSnapshot takeFree() throws InterruptedException {
+        return free.take();
+    }
+
+    /**
+     * @return a snapshot to fill or null if all of them are in flight
+     */
+    public RenderSnapshot pollFree() {
+        return free.poll();
+    }
+
+    public void submit(RenderSnapshot snapshot) {
+        ready.add(snapshot);
+    }
+
+    /**
+     * Releases the previously acquired snapshot and returns the newest one, the older
+     * submitted ones are released unread (the renderer fell behind, they are stale already).
+     * If the producer hasn't delivered a new snapshot yet, the current one is returned again.
+     *
+     * @return the snapshot to draw, it stays valid until the next call;
+     * null if nothing has been submitted yet
+     */
+    public RenderSnapshot acquire() {
+        RenderSnapshot next;
+        while ((next = ready.poll()) != null) {
+            if (current != null) {
+                free.add(current);
+            }
+            current = next;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,559 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Game state and rules. The world knows nothing about Android: sprites are referenced by
+ * indices, texts and sounds are delegated to the {@link Listener}.
+ * <p>
+ * All methods except {@link #requestRestart()} and {@link #isActive()} must be called
+ * from the game thread.
+ */
+public class GameWorld {
+    public static final int SOUND_CORRECT = 1;
+    public static final int SOUND_WRONG = 2;
+    public static final int SOUND_MISS = 3;
+    public static final int SOUND_LEVEL_UP = 4;
+    public static final int SOUND_GAME_OVER = 5;
+    public static final int SOUND_CLICK = 6;
+
+    public static final int COLOR_RED = 0xFFFF0000;
+    public static final int COLOR_GREEN = 0xFF00FF00;
+    public static final int COLOR_YELLOW = 0xFFFFFF00;
+    public static final int COLOR_GRAY = 0xFF888888;
+
+    private static final int INITIAL_MONEY = 10;
+    private static final float INITIAL_CONVEYOR_SPEED = 120.0f;
+    private static final float INITIAL_SPAWN_INTERVAL = 2.0f;
+
+    private static final int MAX_TRASH_ITEMS = 100;
+    // a burst is 15-30 particles living up to a second
+    private static final int MAX_PARTICLES = 4096;
+    // identical messages are merged, so there are few of them even during bursts
+    private static final int MAX_MESSAGES = 16;
+
+    private final Listener listener;
+    private final int[] variantCounts;
+    private final TrashStore trashItems;
+    // built from trashItems after every move, used for the bin collisions and the touch picking
+    private final SpatialGrid grid;
+    private final List<Bin> bins = new ArrayList<>();
+    private final ParticleSystem particles;
+    private final MessageSystem messages;
+
+    private final Random random;
+    private final StatsLedger stats = new StatsLedger();
+    // handed to the listener on game over, the stats above are reset by a restart
+    private final StatsLedger finalStats = new StatsLedger();
+
+    private float beltScrollOffset = 0;
+    private float prevBeltScrollOffset = 0;
+
+    private int money = INITIAL_MONEY;
+    private float gameTime = 0;
+    private volatile boolean gameActive = false;
+    private volatile boolean restartRequested = false;
+    private int level = 1;
+
+    private float spawnTimer = 0;
+    private float spawnInterval = INITIAL_SPAWN_INTERVAL;
+    private float conveyorSpeed = INITIAL_CONVEYOR_SPEED;
+
+    // layout, see setLayout
+    private float screenWidth = 0, screenHeight = 0;
+    private float beltY = 0;
+    private float beltHeight = 0;
+    private float beltTileWidth = 0;
+    private int trashSize = 0;
+
+    // a handle, the item can disappear under the finger (e.g. on restart)
+    private int draggedItem = TrashStore.NONE;
+    private float dragOffsetX, dragOffsetY;
+
+    private float screenShakeTime = 0;
+    private float shakeIntensity = 0;
+
+    /**
+     * @param variantCounts number of sprite variants for each trash type (indexed by ordinal)
+     */
+    public GameWorld(Listener listener, int[] variantCounts, Random random) {
+        this(listener, variantCounts, random, MAX_TRASH_ITEMS, MAX_PARTICLES);
+    }
+
+    // benchmarks need much more items than the game allows
+    GameWorld(Listener listener, int[] variantCounts, Random random, int maxTrashItems, int maxParticles) {
+        this.listener = listener;
+        this.variantCounts = variantCounts;
+        this.random = random;
+        this.trashItems = new TrashStore(maxTrashItems);
+        this.grid = new SpatialGrid(trashItems, maxTrashItems);
+        this.particles = new ParticleSystem(maxParticles);
+        this.messages = new MessageSystem(listener, MAX_MESSAGES);
+    }
+
+    public void setLayout(float screenWidth, float screenHeight,
+                          float beltY, float beltHeight, float beltTileWidth, int trashSize) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.beltY = beltY;
+        this.beltHeight = beltHeight;
+        this.beltTileWidth = beltTileWidth;
+        this.trashSize = trashSize;
+        grid.setBounds(screenWidth, screenHeight, trashSize);
+        grid.rebuild();
+    }
+
+    public void setBins(List<Bin> newBins) {
+        bins.clear();
+        bins.addAll(newBins);
+        setupBinsForLevel();
+    }
+
+    private void setupBinsForLevel() {
+        final float padding = 0.3f;
+        float totalVisibleWidth = 0;
+        for (Bin bin : bins) {
+            if (bin.acceptedType.unlockLevel <= level) {
+                bin.show();
+                totalVisibleWidth += bin.width * (1.0f + padding);
+            } else bin.hide();
+        }
+        float x = (screenWidth - totalVisibleWidth) / 2.0f;
+        for (Bin bin : bins) {
+            bin.x = x;
+            x += bin.width * (1.0f + padding);
+        }
+    }
+
+    private TrashType[] getAvailableTrashTypes() {
+        List<TrashType> available = new ArrayList<>();
+        for (TrashType type : TrashType.values()) {
+            if (type.unlockLevel <= level) {
+                available.add(type);
+            }
+        }
+        return available.toArray(new TrashType[0]);
+    }
+
+    /**
+     * Advances the world by one simulation step.
+     *
+     * @param inputs touch events which happened since the previous step
+     */
+    public void step(float deltaTime, InputQueue inputs) {
+        if (restartRequested) {
+            restartRequested = false;
+            restart();
+            // the touches from the game-over screen must not reach the new game
+            inputs.clear();
+        }
+
+        // only the events which came before the step started, the rest waits for the next step
+        int inputCount = inputs.size();
+        for (int i = 0; i < inputCount; i++) {
+            inputs.poll();
+            if (gameActive) {
+                handleTouch(inputs.getAction(), inputs.getX(), inputs.getY());
+            }
+        }
+        trashItems.compact();
+
+        if (screenShakeTime > 0) {
+            screenShakeTime -= deltaTime;
+            shakeIntensity = screenShakeTime * 20;
+        }
+
+        if (!gameActive) return;
+
+        gameTime += deltaTime;
+        updateDifficulty();
+        updateConveyorBelt(deltaTime);
+
+        spawnTimer += deltaTime;
+        if (spawnTimer >= spawnInterval) {
+            spawnTrash();
+            spawnTimer = 0;
+        }
+
+        updateTrashItems(deltaTime);
+        updateParticles(deltaTime);
+        updateMessages(deltaTime);
+    }
+
+    void updateTrashItems(float deltaTime) {
+        trashItems.update(conveyorSpeed, deltaTime);
+        int count = trashItems.size();
+        for (int i = 0; i < count; i++) {
+            if (trashItems.flags[i] == 0 && trashItems.x[i] > screenWidth) {
+                removeTrashItem(i);
+                handleMissedTrash(i);
+            }
+        }
+
+        grid.rebuild();
+        for (Bin bin : bins) {
+            if (!bin.isVisible()) continue;
+            int candidates = grid.query(bin.x, bin.y, bin.x + bin.width, bin.y + bin.height);
+            for (int i = 0; i < candidates; i++) {
+                int item = grid.getResult(i);
+                // the item could already fall into another bin
+                if ((trashItems.flags[item] & TrashStore.FLAG_REMOVED) == 0 && trashItems.collidesWith(item, bin)) {
+                    handleTrashInBin(item, bin);
+                    removeTrashItem(item);
+                }
+            }
+        }
+        // the grid keeps handles, so it stays valid after the compaction
+        trashItems.compact();
+    }
+
+    void updateParticles(float deltaTime) {
+        particles.update(deltaTime);
+    }
+
+    private void updateMessages(float deltaTime) {
+        messages.update(deltaTime);
+    }
+
+    private void updateConveyorBelt(float deltaTime) {
+        prevBeltScrollOffset = beltScrollOffset;
+        beltScrollOffset += conveyorSpeed * deltaTime;
+
+        if (beltTileWidth > 0 && beltScrollOffset >= beltTileWidth) {
+            beltScrollOffset -= beltTileWidth;
+            prevBeltScrollOffset -= beltTileWidth;
+        }
+    }
+
+    private void updateDifficulty() {
+        int difficultyLevel = (int) (gameTime / 30) + 1;
+
+        if (difficultyLevel > level) {
+            level = difficultyLevel;
+            spawnInterval = Math.max(0.5f, INITIAL_SPAWN_INTERVAL - level * 0.5f);
+            conveyorSpeed = INITIAL_CONVEYOR_SPEED + level * level * 4.0f;
+
+            setupBinsForLevel();
+
+            listener.onSound(SOUND_LEVEL_UP);
+            addMessage(MessageType.LEVEL, level, COLOR_YELLOW, screenWidth / 2, screenHeight / 2);
+        }
+    }
+
+    /**
+     * @return the handle of the new item or TrashStore.NONE if nothing was spawned
+     */
+    int spawnTrash() {
+        TrashType[] availableTypes = getAvailableTrashTypes();
+        if (availableTypes.length == 0) return TrashStore.NONE;
+
+        TrashType type = availableTypes[random.nextInt(availableTypes.length)];
+        int variants = variantCounts[type.ordinal()];
+        if (variants == 0) return TrashStore.NONE;
+
+        float minY = beltY - trashSize * 2 / 3;
+        float maxY = beltY + beltHeight - trashSize;
+
+        float startX = -trashSize * 2;
+        float startYPosition = minY + random.nextFloat() * (maxY - minY);
+
+        // NONE if there are too many items on the screen
+        return trashItems.create(startX, startYPosition, trashSize, type, random.nextInt(variants));
+    }
+
+    private void handleTrashInBin(int item, Bin bin) {
+        TrashType type = trashItems.type[item];
+        float x = trashItems.x[item];
+        float y = trashItems.y[item];
+
+        if (bin.accepts(type)) {
+            // the item was placed into correct bin
+
+            money += type.reward;
+            stats.record(StatsLedger.Outcome.SORTED, type, gameTime);
+
+            createParticleEffect(x, y, type.getColor(), 20, 1.0f);
+            listener.onSound(SOUND_CORRECT);
+            addMessage(MessageType.REWARD, type.reward, COLOR_GREEN, x, y);
+
+            bin.itemsSorted++;
+        } else {
+            // wrong sort
+            stats.record(StatsLedger.Outcome.WRONG, type, gameTime);
+
+            createParticleEffect(x, y, COLOR_RED, 30, 1.5f);
+            screenShakeTime = 0.3f;
+            shakeIntensity = 10;
+            listener.onSound(SOUND_WRONG);
+            addMessage(MessageType.PENALTY, type.penalty, COLOR_RED, x, y);
+
+            addPenalty(type.penalty);
+        }
+    }
+
+    private void addPenalty(int penalty) {
+        assert (penalty < 0);
+        money += penalty;
+        if (money < 0) {
+            gameOver();
+        }
+    }
+
+    private void handleMissedTrash(int item) {
+        TrashType type = trashItems.type[item];
+        int penalty = type.penalty;
+        stats.record(StatsLedger.Outcome.MISSED, type, gameTime);
+        listener.onSound(SOUND_MISS);
+        addMessage(MessageType.MISSED, penalty, COLOR_RED, screenWidth - 200, trashItems.y[item]);
+        addPenalty(penalty);
+    }
+
+    void createParticleEffect(float x, float y, int color, int count, float speed) {
+        particles.emit(x, y, color, count, speed, random);
+    }
+
+    private void gameOver() {
+        gameActive = false;
+        listener.onSound(SOUND_GAME_OVER);
+        screenShakeTime = 0.5f;
+        shakeIntensity = 20;
+
+        stats.copyTo(finalStats);
+        listener.onGameOver(finalStats);
+    }
+
+    private void addMessage(MessageType type, int value, int color, float x, float y) {
+        messages.add(type, value, color, x, y);
+    }
+
+    private void handleTouch(int action, float touchX, float touchY) {
+        int dragged = trashItems.indexOf(draggedItem);
+        if (dragged < 0) {
+            draggedItem = TrashStore.NONE;
+        }
+        switch (action) {
+            case InputQueue.ACTION_DOWN:
+                if (dragged >= 0) break;
+                // the item the user sees, i.e. the top-most one
+                int item = grid.pick(touchX, touchY);
+                if (item >= 0) {
+                    draggedItem = trashItems.handle[item];
+                    trashItems.flags[item] |= TrashStore.FLAG_DRAGGING;
+                    dragOffsetX = touchX - trashItems.x[item];
+                    dragOffsetY = touchY - trashItems.y[item];
+                    listener.onSound(SOUND_CLICK);
+                }
+                break;
+
+            case InputQueue.ACTION_MOVE:
+                if (dragged >= 0) {
+                    trashItems.x[dragged] = touchX - dragOffsetX;
+                    trashItems.y[dragged] = touchY - dragOffsetY;
+                }
+                break;
+
+            case InputQueue.ACTION_UP:
+                if (dragged >= 0) {
+                    float x = trashItems.x[dragged];
+                    float y = trashItems.y[dragged];
+                    boolean hitBin = false;
+                    for (Bin bin : bins) {
+                        if (trashItems.collidesWith(dragged, bin)) {
+                            handleTrashInBin(dragged, bin);
+                            hitBin = true;
+                            removeTrashItem(dragged);
+                            break;
+                        }
+                    }
+
+                    if (!hitBin) {
+                        int penalty = -Math.max(1, trashItems.type[dragged].penalty / 3);
+                        if (isPointOnBelt(x, y + trashSize / 2)) {
+                            // dropped on the conveyor belt - it keeps going.
+                            trashItems.flags[dragged] &= ~TrashStore.FLAG_DRAGGING;
+                            // restore the correct drawing order
+                            trashItems.updateDepth(dragged);
+                            addMessage(MessageType.DID_NOT_GET_IT, penalty, COLOR_YELLOW, x, y);
+                        } else {
+                            // dropped it past - it disappears
+                            stats.record(StatsLedger.Outcome.MISSED, trashItems.type[dragged], gameTime);
+                            listener.onSound(SOUND_MISS);
+                            createParticleEffect(x, y, COLOR_GRAY, 15, 1.0f);
+                            addMessage(MessageType.MISSED_OUT_OF_CONVEYOR, penalty, COLOR_RED, x, y);
+                            removeTrashItem(dragged);
+                        }
+                        addPenalty(penalty);
+                    }
+
+                    draggedItem = TrashStore.NONE;
+                }
+                break;
+        }
+    }
+
+    public boolean isActive() {
+        return gameActive;
+    }
+
+    /**
+     * Starts a new game at the beginning of the next step. Can be called from any thread.
+     */
+    public void requestRestart() {
+        restartRequested = true;
+    }
+
+    private void restart() {
+        money = INITIAL_MONEY;
+        gameTime = 0;
+        gameActive = true;
+        level = 1;
+
+        stats.reset();
+
+        spawnInterval = INITIAL_SPAWN_INTERVAL;
+        conveyorSpeed = INITIAL_CONVEYOR_SPEED;
+
+        trashItems.clear();
+        grid.clear();
+        particles.clear();
+        messages.clear();
+        draggedItem = TrashStore.NONE;
+
+        for (Bin bin : bins) {
+            bin.itemsSorted = 0;
+        }
+        setupBinsForLevel();
+
+        listener.onSound(SOUND_CLICK);
+    }
+
+    private boolean isPointOnBelt(float x, float y) {
+        return y >= beltY && y <= beltY + beltHeight && x >= 0 && x <= screenWidth;
+    }
+
+    /**
+     * Marks the item as removed, it's cheap to call while iterating over the items.
+     * The store is compacted at the end of the input handling and of the item update.
+     */
+    void removeTrashItem(int index) {
+        trashItems.remove(index);
+    }
+
+    /**
+     * Copies the state needed for rendering into the snapshot.
+     */
+    public void writeSnapshot(RenderSnapshot snapshot) {
+        int itemCount = trashItems.size();
+        snapshot.ensureItemCapacity(itemCount);
+        int dragged = -1;
+        int n = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int flags = trashItems.flags[i];
+            if ((flags & TrashStore.FLAG_REMOVED) != 0) continue;
+            if ((flags & TrashStore.FLAG_DRAGGING) != 0) {
+                dragged = i;
+            } else {
+                writeItem(snapshot, n++, i);
+            }
+        }
+        // the dragged item is drawn on top of all
+        snapshot.lastItemDragged = dragged >= 0;
+        if (dragged >= 0) {
+            writeItem(snapshot, n++, dragged);
+        }
+        snapshot.itemCount = n;
+
+        particles.writeTo(snapshot);
+
+        messages.writeTo(snapshot);
+
+        snapshot.ensureBinCapacity(bins.size());
+        n = 0;
+        for (Bin bin : bins) {
+            if (!bin.isVisible()) continue;
+            snapshot.binX[n] = bin.x;
+            snapshot.binY[n] = bin.y;
+            snapshot.binWidth[n] = bin.width;
+            snapshot.binType[n] = bin.acceptedType.ordinal();
+            snapshot.binItemsSorted[n] = bin.itemsSorted;
+            n++;
+        }
+        snapshot.binCount = n;
+
+        snapshot.active = gameActive;
+        snapshot.money = money;
+        snapshot.level = level;
+        snapshot.gameTime = gameTime;
+        snapshot.treesSaved = stats.getTreesSaved();
+        snapshot.waterSaved = stats.getWaterSaved();
+        snapshot.co2Saved = stats.getCo2Saved();
+        snapshot.screenShakeTime = screenShakeTime;
+        snapshot.shakeIntensity = shakeIntensity;
+        snapshot.prevBeltScrollOffset = prevBeltScrollOffset;
+        snapshot.beltScrollOffset = beltScrollOffset;
+    }
+
+    private void writeItem(RenderSnapshot snapshot, int index, int item) {
+        snapshot.itemPrevX[index] = trashItems.prevX[item];
+        snapshot.itemPrevY[index] = trashItems.prevY[item];
+        snapshot.itemX[index] = trashItems.x[item];
+        snapshot.itemY[index] = trashItems.y[item];
+        snapshot.itemWidth[index] = trashItems.width[item];
+        snapshot.itemHeight[index] = trashItems.height[item];
+        snapshot.itemType[index] = trashItems.type[item].ordinal();
+        snapshot.itemVariant[index] = trashItems.variant[item];
+    }
+
+    public TrashStore getTrashItems() {
+        return trashItems;
+    }
+
+    /**
+     * @return the handle of the dragged item or TrashStore.NONE
+     */
+    public int getDraggedItem() {
+        return trashItems.isAlive(draggedItem) ? draggedItem : TrashStore.NONE;
+    }
+
+    public List<Bin> getBins() {
+        return bins;
+    }
+
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    public MessageSystem getMessages() {
+        return messages;
+    }
+
+    public StatsLedger getStats() {
+        return stats;
+    }
+
+    public int getMoney() {
+        return money;
+    }
+
+    public enum MessageType {
+        LEVEL,
+        REWARD,
+        PENALTY,
+        MISSED,
+        DID_NOT_GET_IT,
+        MISSED_OUT_OF_CONVEYOR
+    }
+
+    public interface Listener {
+        void onSound(int soundId);
+
+        String formatMessage(MessageType type, int value);
+
+        /**
+         * @param stats the session statistics, valid until the next game over
+         */
+        void onGameOver(StatsLedger stats);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * Touch events passed from the UI thread to the game thread.
+ * <p>
+ * A preallocated single-producer/single-consumer ring: {@link #add} must be called from one thread
+ * (the UI thread) and {@link #poll} from another one (the simulation). There are no locks
+ * and no allocations, the events are stored as primitive records.
+ */
+public class InputQueue {
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_MOVE = 1;
+    public static final int ACTION_UP = 2;
+
+    // must be a power of two; the simulation drains the queue every few milliseconds,
+    // so it's never close to full in practice
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] actions = new int[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+
+    // the counters only grow (and wrap around), an index in the ring is counter & MASK
+    private volatile int head = 0; // written by the producer
+    private volatile int tail = 0; // written by the consumer
+
+    // the last polled event, owned by the consumer
+    private int action;
+    private float x, y;
+
+    /**
+     * @return false if the queue is full and the event was dropped
+     */
+    public boolean add(int action, float x, float y) {
+        int h = head;
+        if (h - tail == CAPACITY) return false;
+        int i = h & MASK;
+        actions[i] = action;
+        xs[i] = x;
+        ys[i] = y;
+        // the volatile write publishes the record
+        head = h + 1;
+        return true;
+    }
+
+    /**
+     * @return how many events can be polled now
+     */
+    public int size() {
+        return head - tail;
+    }
+
+    /**
+     * Drops the queued events, called by the consumer only.
+     */
+    public void clear() {
+        tail = head;
+    }
+
+    /**
+     * Takes the oldest event, it can be read with {@link #getAction()}, {@link #getX()} and {@link #getY()}.
+     *
+     * @return false if the queue is empty
+     */
+    public boolean poll() {
+        int t = tail;
+        if (t == head) return false;
+        int i = t & MASK;
+        action = actions[i];
+        x = xs[i];
+        y = ys[i];
+        // the slot can be reused by the producer after this write
+        tail = t + 1;
+        return true;
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of durations (the same layout as HdrHistogram uses): every power of two range
+ * is split into SUB_BUCKET_HALF linear buckets, so the relative error is within ~3%.
+ * <p>
+ * Recording is lock-free and doesn't allocate, several threads can record at once.
+ * The queries don't stop the recording, a value recorded at the same time may be missed by them.
+ */
+public class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    // ~68 seconds in nanoseconds, larger values are clamped
+    private static final int MAX_VALUE_BITS = 36;
+    static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        if (value > MAX_VALUE) value = MAX_VALUE;
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * @param percentile in range [0, 100]
+     * @return the value which the given percentage of samples doesn't exceed
+     */
+    public long getPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) return 0;
+        long max = maxValue.get();
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Forgets all values. The values recorded during the reset may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        // keep SUB_BUCKET_BITS significant bits
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift); // in [SUB_BUCKET_HALF, SUB_BUCKET_COUNT)
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * Floating messages ("+5", "Missed!" etc.) in a bounded pool.
+ * An identical message appearing near a live one isn't added, the live one gets a counter
+ * instead ("+5 x3"), so the number of messages to draw stays bounded during bursts.
+ * The counter is kept as a number and drawn separately, merging doesn't allocate.
+ */
+public class MessageSystem {
+    private static final float LIFETIME = 2.0f;
+    private static final float RISE_SPEED = 50;
+    // how close an identical message must be to merge with a live one
+    private static final float MERGE_DISTANCE_X = 200;
+    private static final float MERGE_DISTANCE_Y = 100;
+
+    private final GameWorld.Listener listener;
+    // live messages are kept at the beginning, in the order they were added
+    private final GameMessage[] messages;
+    private int count = 0;
+
+    MessageSystem(GameWorld.Listener listener, int capacity) {
+        this.listener = listener;
+        messages = new GameMessage[capacity];
+        for (int i = 0; i < capacity; i++) {
+            messages[i] = new GameMessage();
+        }
+    }
+
+    void add(GameWorld.MessageType type, int value, int color, float x, float y) {
+        for (int i = 0; i < count; i++) {
+            GameMessage msg = messages[i];
+            if (msg.type == type && msg.value == value && msg.color == color &&
+                    Math.abs(msg.x - x) < MERGE_DISTANCE_X && Math.abs(msg.y - y) < MERGE_DISTANCE_Y) {
+                msg.repeatCount++;
+                msg.lifeTime = LIFETIME;
+                return;
+            }
+        }
+
+        if (count == messages.length) {
+            // the pool is exhausted - the message which is about to expire makes room
+            int oldest = 0;
+            for (int i = 1; i < count; i++) {
+                if (messages[i].lifeTime < messages[oldest].lifeTime) oldest = i;
+            }
+            remove(oldest);
+        }
+        GameMessage msg = messages[count++];
+        msg.type = type;
+        msg.value = value;
+        msg.text = listener.formatMessage(type, value);
+        msg.repeatCount = 1;
+        msg.color = color;
+        msg.x = x;
+        msg.y = y;
+        msg.lifeTime = LIFETIME;
+    }
+
+    void update(float deltaTime) {
+        for (int i = count - 1; i >= 0; i--) {
+            GameMessage msg = messages[i];
+            msg.lifeTime -= deltaTime;
+            msg.y -= RISE_SPEED * deltaTime;
+            if (msg.lifeTime <= 0) {
+                remove(i);
+            }
+        }
+    }
+
+    // keeps the order of the rest, so overlapping messages don't flicker
+    private void remove(int index) {
+        GameMessage removed = messages[index];
+        removed.text = null;
+        System.arraycopy(messages, index + 1, messages, index, count - index - 1);
+        messages[--count] = removed;
+    }
+
+    void writeTo(RenderSnapshot snapshot) {
+        snapshot.ensureMessageCapacity(count);
+        for (int i = 0; i < count; i++) {
+            GameMessage msg = messages[i];
+            snapshot.messageText[i] = msg.text;
+            snapshot.messageRepeatCount[i] = msg.repeatCount;
+            snapshot.messageColor[i] = msg.color;
+            snapshot.messageX[i] = msg.x;
+            snapshot.messageY[i] = msg.y;
+        }
+        // don't keep references to the texts of expired messages
+        for (int i = count; i < snapshot.messageCount; i++) {
+            snapshot.messageText[i] = null;
+        }
+        snapshot.messageCount = count;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public GameMessage get(int index) {
+        return messages[index];
+    }
+
+    void clear() {
+        while (count > 0) {
+            remove(count - 1);
+        }
+    }
+
+    public static class GameMessage {
+        public GameWorld.MessageType type;
+        public int value;
+        // the formatted message without the counter
+        public String text;
+        public int repeatCount;
+        public int color;
+        public float x, y;
+        public float lifeTime;
+    }
+}
@@ -0,0 +1,82 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * Draws particles in batches: they are grouped by color and quantized alpha,
+ * and every group is drawn as round points with a single drawPoints call.
+ * The number of draw calls depends on the number of colors, not on the number of particles.
+ */
+class ParticleRenderer {
+    // the size of a particle fades out together with the alpha, so the level determines both
+    private static final int ALPHA_LEVELS = 8;
+    // more than enough for the trash type colors and the effect colors
+    private static final int MAX_COLORS = 16;
+
+    // a single point drawn separately
+    private final float[] point = new float[2];
+    private final int[] colors = new int[MAX_COLORS];
+    private int colorCount = 0;
+    // indexed by color slot * ALPHA_LEVELS + alpha level; x, y pairs
+    private final float[][] points = new float[MAX_COLORS * ALPHA_LEVELS][];
+    private final int[] pointCounts = new int[MAX_COLORS * ALPHA_LEVELS];
+    private final float[] sizeSums = new float[MAX_COLORS * ALPHA_LEVELS];
+
+    ParticleRenderer() {
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new float[64];
+        }
+    }
+
+    void draw(RenderTarget target, RenderSnapshot frame, float interpolation) {
+        colorCount = 0;
+        for (int i = 0; i < frame.particleCount; i++) {
+            float x = frame.particlePrevX[i] + (frame.particleX[i] - frame.particlePrevX[i]) * interpolation;
+            float y = frame.particlePrevY[i] + (frame.particleY[i] - frame.particlePrevY[i]) * interpolation;
+            int color = frame.particleColor[i];
+            int slot = getColorSlot(color & 0x00FFFFFF);
+            if (slot < 0) {
+                // too many different colors, draw it separately
+                point[0] = x;
+                point[1] = y;
+                target.drawPoints(point, 1, frame.particleSize[i], color);
+                continue;
+            }
+
+            int bucket = slot * ALPHA_LEVELS + (color >>> 24) * ALPHA_LEVELS / 256;
+            int n = pointCounts[bucket];
+            if (points[bucket].length < n * 2 + 2) {
+                points[bucket] = Arrays.copyOf(points[bucket], points[bucket].length * 2);
+            }
+            points[bucket][n * 2] = x;
+            points[bucket][n * 2 + 1] = y;
+            pointCounts[bucket] = n + 1;
+            sizeSums[bucket] += frame.particleSize[i];
+        }
+
+        for (int slot = 0; slot < colorCount; slot++) {
+            for (int level = 0; level < ALPHA_LEVELS; level++) {
+                int bucket = slot * ALPHA_LEVELS + level;
+                int n = pointCounts[bucket];
+                if (n == 0) continue;
+                // the middle of the alpha range of the level
+                int alpha = (level * 2 + 1) * 256 / (ALPHA_LEVELS * 2);
+                target.drawPoints(points[bucket], n, sizeSums[bucket] / n, (alpha << 24) | colors[slot]);
+                pointCounts[bucket] = 0;
+                sizeSums[bucket] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the color among the colors of the current frame or -1 if there is no free slot
+     */
+    private int getColorSlot(int rgb) {
+        for (int i = 0; i < colorCount; i++) {
+            if (colors[i] == rgb) return i;
+        }
+        if (colorCount == MAX_COLORS) return -1;
+        colors[colorCount] = rgb;
+        return colorCount++;
+    }
+}
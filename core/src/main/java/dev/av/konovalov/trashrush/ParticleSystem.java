@@ -0,0 +1,137 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Random;
+
+/**
+ * Fixed-capacity particle storage in primitive arrays (structure of arrays).
+ * Live particles are kept dense at the beginning of the arrays, a dead one is replaced
+ * with the last live one, so neither emitting nor removing allocates.
+ */
+public class ParticleSystem {
+    private static final float BASE_SIZE = 10;
+    private static final float GRAVITY = 0.1f;
+
+    // directions of the emitted particles are taken from a table instead of sin/cos per particle
+    private static final int DIRECTIONS = 256;
+    private static final float[] DIRECTION_X = new float[DIRECTIONS];
+    private static final float[] DIRECTION_Y = new float[DIRECTIONS];
+
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = Math.PI * 2 * i / DIRECTIONS;
+            DIRECTION_X[i] = (float) Math.cos(angle);
+            DIRECTION_Y[i] = (float) Math.sin(angle);
+        }
+    }
+
+    private final float[] x, y;
+    // position at the previous simulation step (used for interpolated rendering)
+    private final float[] prevX, prevY;
+    private final float[] velocityX, velocityY;
+    private final float[] lifeTime;
+    private final float[] invMaxLifeTime;
+    private final int[] color;
+    private int count = 0;
+
+    public ParticleSystem(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        lifeTime = new float[capacity];
+        invMaxLifeTime = new float[capacity];
+        color = new int[capacity];
+    }
+
+    /**
+     * Emits a burst of particles in random directions. If the storage is full, the rest of the
+     * burst is dropped (it's just a visual effect).
+     */
+    public void emit(float startX, float startY, int rgb, int burstSize, float speed, Random random) {
+        int end = Math.min(count + burstSize, x.length);
+        for (int i = count; i < end; i++) {
+            int direction = random.nextInt(DIRECTIONS);
+            float velocity = speed * (0.5f + random.nextFloat());
+            float maxLifeTime = 0.5f + random.nextFloat() * 0.5f;
+
+            x[i] = startX;
+            y[i] = startY;
+            prevX[i] = startX;
+            prevY[i] = startY;
+            velocityX[i] = DIRECTION_X[direction] * velocity;
+            velocityY[i] = DIRECTION_Y[direction] * velocity;
+            lifeTime[i] = maxLifeTime;
+            invMaxLifeTime[i] = 1 / maxLifeTime;
+            color[i] = rgb & 0x00FFFFFF;
+        }
+        count = end;
+    }
+
+    public void update(float deltaTime) {
+        float scale = deltaTime * 60;
+        float gravity = GRAVITY * scale;
+        int i = 0;
+        while (i < count) {
+            lifeTime[i] -= deltaTime;
+            if (lifeTime[i] <= 0) {
+                // the last particle takes the place of the dead one and is updated in the next iteration
+                remove(i);
+                continue;
+            }
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            x[i] += velocityX[i] * scale;
+            y[i] += velocityY[i] * scale;
+            velocityY[i] += gravity;
+            i++;
+        }
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        lifeTime[i] = lifeTime[last];
+        invMaxLifeTime[i] = invMaxLifeTime[last];
+        color[i] = color[last];
+    }
+
+    /**
+     * Copies the particles into the snapshot, the size and the alpha fade out with the remaining lifetime.
+     */
+    void writeTo(RenderSnapshot snapshot) {
+        snapshot.ensureParticleCapacity(count);
+        System.arraycopy(prevX, 0, snapshot.particlePrevX, 0, count);
+        System.arraycopy(prevY, 0, snapshot.particlePrevY, 0, count);
+        System.arraycopy(x, 0, snapshot.particleX, 0, count);
+        System.arraycopy(y, 0, snapshot.particleY, 0, count);
+        for (int i = 0; i < count; i++) {
+            float life = lifeTime[i] * invMaxLifeTime[i];
+            snapshot.particleSize[i] = BASE_SIZE * life;
+            snapshot.particleColor[i] = ((int) (255 * life) << 24) | color[i];
+        }
+        snapshot.particleCount = count;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+}
@@ -0,0 +1,180 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * A headless {@link RenderTarget} which doesn't draw anything but counts what drawing would cost:
+ * draw calls, state changes (color, size or text style differing from the previous call)
+ * and the pixels covered inside the screen. Text is measured approximately.
+ */
+public class RecordingRenderTarget implements RenderTarget {
+    // the average glyph width relative to the text size
+    private static final float GLYPH_WIDTH = 0.55f;
+
+    private final float width, height;
+    private int[] imageWidths = new int[0];
+    private int[] imageHeights = new int[0];
+    private int imageCount = 0;
+
+    private float translateX, translateY;
+    private int drawCalls;
+    private int stateChanges;
+    private double pixelsCovered;
+    private int lastColor;
+    private float lastSize;
+    private TextStyle lastStyle;
+
+    public RecordingRenderTarget(float width, float height) {
+        this.width = width;
+        this.height = height;
+        beginFrame();
+    }
+
+    /**
+     * @return the id of the new image
+     */
+    public int addImage(int imageWidth, int imageHeight) {
+        if (imageCount == imageWidths.length) {
+            imageWidths = Arrays.copyOf(imageWidths, imageCount * 2 + 4);
+            imageHeights = Arrays.copyOf(imageHeights, imageCount * 2 + 4);
+        }
+        imageWidths[imageCount] = imageWidth;
+        imageHeights[imageCount] = imageHeight;
+        return imageCount++;
+    }
+
+    /**
+     * Resets the counters and the translation.
+     */
+    public void beginFrame() {
+        translateX = 0;
+        translateY = 0;
+        drawCalls = 0;
+        stateChanges = 0;
+        pixelsCovered = 0;
+        lastColor = 0;
+        lastSize = 0;
+        lastStyle = null;
+    }
+
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    public double getPixelsCovered() {
+        return pixelsCovered;
+    }
+
+    /**
+     * @return how many times every pixel of the screen is drawn on average
+     */
+    public double getOverdraw() {
+        return pixelsCovered / (width * height);
+    }
+
+    @Override
+    public int getImageWidth(int image) {
+        return imageWidths[image];
+    }
+
+    @Override
+    public int getImageHeight(int image) {
+        return imageHeights[image];
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        translateX += dx;
+        translateY += dy;
+    }
+
+    @Override
+    public void drawImage(int image, float x, float y) {
+        drawCalls++;
+        cover(x, y, x + imageWidths[image], y + imageHeights[image]);
+    }
+
+    @Override
+    public void fillTiled(int image, float left, float top, float right, float bottom, float originX, float originY) {
+        drawCalls++;
+        cover(left, top, right, bottom);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, int color) {
+        drawCalls++;
+        setColor(color);
+        cover(left, top, right, bottom);
+    }
+
+    @Override
+    public void strokeCircle(float centerX, float centerY, float radius, float strokeWidth, int color) {
+        drawCalls++;
+        setColor(color);
+        setSize(strokeWidth);
+        // the ring area, ignoring the screen edges
+        if (centerX + translateX + radius > 0 && centerX + translateX - radius < width &&
+                centerY + translateY + radius > 0 && centerY + translateY - radius < height) {
+            pixelsCovered += 2 * Math.PI * radius * strokeWidth;
+        }
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, TextStyle style, int color) {
+        drawCalls++;
+        setColor(color);
+        if (style != lastStyle) {
+            stateChanges++;
+            lastStyle = style;
+        }
+        float textWidth = text.length() * style.size * GLYPH_WIDTH;
+        float left = x;
+        if (style.align == TextStyle.ALIGN_CENTER) {
+            left = x - textWidth / 2;
+        } else if (style.align == TextStyle.ALIGN_RIGHT) {
+            left = x - textWidth;
+        }
+        // x, y is the baseline
+        cover(left, y - style.size, left + textWidth, y);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int count, float size, int color) {
+        drawCalls++;
+        setColor(color);
+        setSize(size);
+        float radius = size / 2;
+        for (int i = 0; i < count; i++) {
+            cover(points[i * 2] - radius, points[i * 2 + 1] - radius,
+                    points[i * 2] + radius, points[i * 2 + 1] + radius);
+        }
+    }
+
+    private void setColor(int color) {
+        if (color != lastColor) {
+            stateChanges++;
+            lastColor = color;
+        }
+    }
+
+    private void setSize(float size) {
+        if (size != lastSize) {
+            stateChanges++;
+            lastSize = size;
+        }
+    }
+
+    private void cover(float left, float top, float right, float bottom) {
+        left = Math.max(left + translateX, 0);
+        top = Math.max(top + translateY, 0);
+        right = Math.min(right + translateX, width);
+        bottom = Math.min(bottom + translateY, height);
+        if (right > left && bottom > top) {
+            pixelsCovered += (double) (right - left) * (bottom - top);
+        }
+    }
+}
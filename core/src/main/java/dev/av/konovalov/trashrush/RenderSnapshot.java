@@ -0,0 +1,100 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * Everything the renderer needs to draw a frame, copied out of the {@link GameWorld}.
+ * The arrays only grow, so filling a snapshot doesn't allocate in a steady state.
+ */
+public class RenderSnapshot {
+    // trash items in the drawing order
+    public int itemCount;
+    public float[] itemPrevX = new float[0], itemPrevY = new float[0];
+    public float[] itemX = new float[0], itemY = new float[0];
+    public float[] itemWidth = new float[0], itemHeight = new float[0];
+    public int[] itemType = new int[0];
+    public int[] itemVariant = new int[0];
+    // the last item is being dragged (it's drawn on top of all without interpolation)
+    public boolean lastItemDragged;
+
+    public int particleCount;
+    public float[] particlePrevX = new float[0], particlePrevY = new float[0];
+    public float[] particleX = new float[0], particleY = new float[0];
+    public float[] particleSize = new float[0];
+    public int[] particleColor = new int[0];
+
+    public int messageCount;
+    public String[] messageText = new String[0];
+    // how many identical messages were merged into the message, drawn as " x3" after the text
+    public int[] messageRepeatCount = new int[0];
+    public int[] messageColor = new int[0];
+    public float[] messageX = new float[0], messageY = new float[0];
+
+    // visible bins only
+    public int binCount;
+    public float[] binX = new float[0], binY = new float[0];
+    public float[] binWidth = new float[0];
+    public int[] binType = new int[0];
+    public int[] binItemsSorted = new int[0];
+
+    public boolean active;
+    public int money;
+    public int level;
+    public float gameTime;
+    public float treesSaved, waterSaved, co2Saved;
+    public float screenShakeTime, shakeIntensity;
+    public float prevBeltScrollOffset, beltScrollOffset;
+    // position between the previous (0) and the current (1) simulation step at the time
+    // the snapshot was taken
+    public float interpolation;
+
+    void ensureItemCapacity(int capacity) {
+        if (itemX.length >= capacity) return;
+        capacity = Math.max(capacity, itemX.length * 2);
+        itemPrevX = Arrays.copyOf(itemPrevX, capacity);
+        itemPrevY = Arrays.copyOf(itemPrevY, capacity);
+        itemX = Arrays.copyOf(itemX, capacity);
+        itemY = Arrays.copyOf(itemY, capacity);
+        itemWidth = Arrays.copyOf(itemWidth, capacity);
+        itemHeight = Arrays.copyOf(itemHeight, capacity);
+        itemType = Arrays.copyOf(itemType, capacity);
+        itemVariant = Arrays.copyOf(itemVariant, capacity);
+    }
+
+    void ensureParticleCapacity(int capacity) {
+        if (particleX.length >= capacity) return;
+        capacity = Math.max(capacity, particleX.length * 2);
+        particlePrevX = Arrays.copyOf(particlePrevX, capacity);
+        particlePrevY = Arrays.copyOf(particlePrevY, capacity);
+        particleX = Arrays.copyOf(particleX, capacity);
+        particleY = Arrays.copyOf(particleY, capacity);
+        particleSize = Arrays.copyOf(particleSize, capacity);
+        particleColor = Arrays.copyOf(particleColor, capacity);
+    }
+
+    void ensureMessageCapacity(int capacity) {
+        if (messageX.length >= capacity) return;
+        capacity = Math.max(capacity, messageX.length * 2);
+        messageText = Arrays.copyOf(messageText, capacity);
+        messageRepeatCount = Arrays.copyOf(messageRepeatCount, capacity);
+        messageColor = Arrays.copyOf(messageColor, capacity);
+        messageX = Arrays.copyOf(messageX, capacity);
+        messageY = Arrays.copyOf(messageY, capacity);
+    }
+
+    void ensureBinCapacity(int capacity) {
+        if (binX.length >= capacity) return;
+        binX = Arrays.copyOf(binX, capacity);
+        binY = Arrays.copyOf(binY, capacity);
+        binWidth = Arrays.copyOf(binWidth, capacity);
+        binType = Arrays.copyOf(binType, capacity);
+        binItemsSorted = Arrays.copyOf(binItemsSorted, capacity);
+    }
+
+    /**
+     * @param interpolation position between the previous (0) and the current (1) simulation step
+     */
+    public float getBeltScrollOffset(float interpolation) {
+        return prevBeltScrollOffset + (beltScrollOffset - prevBeltScrollOffset) * interpolation;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * The drawing operations the game renderer needs. Images are referenced by ids
+ * assigned by the target, colors are ARGB.
+ */
+public interface RenderTarget {
+    int getImageWidth(int image);
+
+    int getImageHeight(int image);
+
+    void translate(float dx, float dy);
+
+    void drawImage(int image, float x, float y);
+
+    /**
+     * Fills the rectangle with the image repeated in both directions.
+     *
+     * @param originX x of a tile corner, the pattern is shifted by it
+     * @param originY y of a tile corner
+     */
+    void fillTiled(int image, float left, float top, float right, float bottom, float originX, float originY);
+
+    void drawRect(float left, float top, float right, float bottom, int color);
+
+    void strokeCircle(float centerX, float centerY, float radius, float strokeWidth, int color);
+
+    void drawText(String text, float x, float y, TextStyle style, int color);
+
+    /**
+     * Draws round points of the same size and color.
+     *
+     * @param points x, y pairs
+     * @param count  the number of points
+     */
+    void drawPoints(float[] points, int count, float size, int color);
+
+    class TextStyle {
+        public static final int ALIGN_LEFT = 0;
+        public static final int ALIGN_CENTER = 1;
+        public static final int ALIGN_RIGHT = 2;
+
+        public final float size;
+        public final boolean bold;
+        public final int align;
+
+        public TextStyle(float size, boolean bold, int align) {
+            this.size = size;
+            this.bold = bold;
+            this.align = align;
+        }
+    }
+}
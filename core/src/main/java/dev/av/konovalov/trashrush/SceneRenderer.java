@@ -0,0 +1,141 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws a {@link RenderSnapshot} on a {@link RenderTarget}.
+ * <p>
+ * The parts which rarely change come as ready images: the static layer (the background,
+ * the conveyor frames and the bins) and the header, the renderer only blits them.
+ */
+public class SceneRenderer {
+    public static final RenderTarget.TextStyle BIN_COUNTER_STYLE =
+            new RenderTarget.TextStyle(24, false, RenderTarget.TextStyle.ALIGN_LEFT);
+    public static final RenderTarget.TextStyle MESSAGE_STYLE =
+            new RenderTarget.TextStyle(30, true, RenderTarget.TextStyle.ALIGN_CENTER);
+    // a merged message is split at its position: the text on the left, the counter on the right
+    public static final RenderTarget.TextStyle MESSAGE_TEXT_STYLE =
+            new RenderTarget.TextStyle(30, true, RenderTarget.TextStyle.ALIGN_RIGHT);
+    public static final RenderTarget.TextStyle MESSAGE_COUNTER_STYLE =
+            new RenderTarget.TextStyle(30, true, RenderTarget.TextStyle.ALIGN_LEFT);
+
+    private static final int COLOR_WHITE = 0xFFFFFFFF;
+    private static final int COLOR_HIGHLIGHT = 0x96FFFF00;
+    private static final int COLOR_PROGRESS = 0xFF00FF00;
+
+    private final Random random;
+    private final ParticleRenderer particleRenderer = new ParticleRenderer();
+    // " x2", " x3"..., indexed by the repeat count, built once
+    private String[] counterTexts = new String[0];
+
+    private float screenWidth;
+    private float uiZoneHeight;
+    private float beltY;
+
+    private int staticLayerImage;
+    private int beltImage;
+    private int headerImage;
+    // indexed by TrashType ordinal and variant
+    private int[][] trashImages;
+
+    public SceneRenderer(Random random) {
+        this.random = random;
+    }
+
+    public void setLayout(float screenWidth, float uiZoneHeight, float beltY) {
+        this.screenWidth = screenWidth;
+        this.uiZoneHeight = uiZoneHeight;
+        this.beltY = beltY;
+    }
+
+    public void setImages(int staticLayerImage, int beltImage, int headerImage, int[][] trashImages) {
+        this.staticLayerImage = staticLayerImage;
+        this.beltImage = beltImage;
+        this.headerImage = headerImage;
+        this.trashImages = trashImages;
+    }
+
+    /**
+     * @param interpolation position between the previous (0) and the current (1) simulation step
+     */
+    public void draw(RenderTarget target, RenderSnapshot frame, float interpolation) {
+        // the simulation is frozen, there is nothing to interpolate between
+        if (!frame.active) interpolation = 1.0f;
+
+        // screen shaking effect
+        float shakeX = 0, shakeY = 0;
+        if (frame.screenShakeTime > 0) {
+            shakeX = (random.nextFloat() - 0.5f) * 2 * frame.shakeIntensity;
+            shakeY = (random.nextFloat() - 0.5f) * 2 * frame.shakeIntensity;
+        }
+        target.translate(shakeX, shakeY);
+
+        target.drawImage(staticLayerImage, 0, 0);
+        drawMovingBelt(target, frame.getBeltScrollOffset(interpolation));
+
+        for (int i = 0; i < frame.binCount; i++) {
+            target.drawText(Integer.toString(frame.binItemsSorted[i]),
+                    frame.binX[i] + frame.binWidth[i] / 2 - 10, frame.binY[i] - 10, BIN_COUNTER_STYLE, COLOR_WHITE);
+        }
+
+        int itemsOnBelt = frame.lastItemDragged ? frame.itemCount - 1 : frame.itemCount;
+        for (int i = 0; i < itemsOnBelt; i++) {
+            float x = frame.itemPrevX[i] + (frame.itemX[i] - frame.itemPrevX[i]) * interpolation;
+            float y = frame.itemPrevY[i] + (frame.itemY[i] - frame.itemPrevY[i]) * interpolation;
+            target.drawImage(trashImages[frame.itemType[i]][frame.itemVariant[i]], x, y);
+        }
+
+        // draw dragged item on top of all
+        if (frame.lastItemDragged) {
+            int i = frame.itemCount - 1;
+            float x = frame.itemX[i];
+            float y = frame.itemY[i];
+            float width = frame.itemWidth[i];
+            target.drawImage(trashImages[frame.itemType[i]][frame.itemVariant[i]], x, y);
+            target.strokeCircle(x + width / 2, y + frame.itemHeight[i] / 2, width / 2 + 10, 5, COLOR_HIGHLIGHT);
+        }
+
+        particleRenderer.draw(target, frame, interpolation);
+
+        for (int i = 0; i < frame.messageCount; i++) {
+            int repeatCount = frame.messageRepeatCount[i];
+            if (repeatCount <= 1) {
+                target.drawText(frame.messageText[i], frame.messageX[i], frame.messageY[i], MESSAGE_STYLE, frame.messageColor[i]);
+            } else {
+                target.drawText(frame.messageText[i], frame.messageX[i], frame.messageY[i], MESSAGE_TEXT_STYLE, frame.messageColor[i]);
+                target.drawText(getCounterText(repeatCount), frame.messageX[i], frame.messageY[i], MESSAGE_COUNTER_STYLE, frame.messageColor[i]);
+            }
+        }
+
+        drawHeader(target, frame);
+        target.translate(-shakeX, -shakeY);
+    }
+
+    private String getCounterText(int repeatCount) {
+        if (repeatCount >= counterTexts.length) {
+            counterTexts = Arrays.copyOf(counterTexts, Math.max(repeatCount + 1, counterTexts.length * 2));
+        }
+        if (counterTexts[repeatCount] == null) {
+            counterTexts[repeatCount] = " \u00D7" + repeatCount;
+        }
+        return counterTexts[repeatCount];
+    }
+
+    // a single draw call however wide the screen is
+    private void drawMovingBelt(RenderTarget target, float scrollOffset) {
+        target.fillTiled(beltImage, 0, beltY, screenWidth, beltY + target.getImageHeight(beltImage),
+                scrollOffset % target.getImageWidth(beltImage), beltY);
+    }
+
+    private void drawHeader(RenderTarget target, RenderSnapshot frame) {
+        target.drawImage(headerImage, 0, 0);
+
+        // in-level progress, the track is a part of the header image
+        float progressWidth = screenWidth * 0.8f;
+        float progressX = screenWidth * 0.1f;
+        float progressY = uiZoneHeight - 10;
+        float levelProgress = frame.gameTime % 30 / 30;
+        target.drawRect(progressX, progressY - 5, progressX + progressWidth * levelProgress, progressY + 5, COLOR_PROGRESS);
+    }
+}
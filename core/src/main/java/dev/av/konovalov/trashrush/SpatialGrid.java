@@ -0,0 +1,150 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the screen for finding the trash items near a point or a rectangle.
+ * <p>
+ * It's rebuilt from scratch after the items move (a counting sort by cell, no allocations
+ * in a steady state), the queries only look at the items in the touched cells.
+ * The grid keeps handles, so it survives the compaction of the store.
+ * The dragged and the removed items are never returned.
+ */
+class SpatialGrid {
+    // a wider screen just gets wider cells
+    private static final int MAX_CELLS_PER_AXIS = 64;
+
+    private final TrashStore items;
+    private float cellWidth = 1, cellHeight = 1;
+    private int columns = 1, rows = 1;
+    // handles of the items of the cell i are entries[cellStart[i]..cellStart[i + 1]), in the drawing order
+    private int[] cellStart = new int[2];
+    private int[] cellFill = new int[1];
+    private int[] entries = new int[64];
+
+    private int[] results = new int[16];
+    // an item can be in several cells, the marks (by the dense index) filter out duplicates
+    private final int[] marks;
+    private int queryMark = 0;
+
+    SpatialGrid(TrashStore items, int capacity) {
+        this.items = items;
+        // the spare place of the store included
+        marks = new int[capacity + 1];
+    }
+
+    /**
+     * @param minCellSize at least the size of an item, so an item covers 4 cells at most
+     */
+    void setBounds(float width, float height, float minCellSize) {
+        columns = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) (width / minCellSize)));
+        rows = Math.max(1, Math.min(MAX_CELLS_PER_AXIS, (int) (height / minCellSize)));
+        cellWidth = Math.max(minCellSize, width / columns);
+        cellHeight = Math.max(minCellSize, height / rows);
+        cellStart = new int[columns * rows + 1];
+        cellFill = new int[columns * rows];
+    }
+
+    /**
+     * Forgets all items, e.g. when they are returned to the pool.
+     */
+    void clear() {
+        Arrays.fill(cellStart, 0);
+    }
+
+    void rebuild() {
+        int cellCount = columns * rows;
+        Arrays.fill(cellStart, 0);
+        int size = items.size();
+        // count the items per cell...
+        for (int i = 0; i < size; i++) {
+            if (isSkipped(i)) continue;
+            int c0 = column(items.x[i]), c1 = column(items.x[i] + items.width[i]);
+            int r0 = row(items.y[i]), r1 = row(items.y[i] + items.height[i]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        // ...turn the counts into offsets...
+        for (int i = 0; i < cellCount; i++) {
+            cellStart[i + 1] += cellStart[i];
+        }
+        int total = cellStart[cellCount];
+        if (entries.length < total) {
+            entries = new int[Math.max(total, entries.length * 2)];
+        }
+        // ...and place the items, keeping the drawing order inside every cell
+        System.arraycopy(cellStart, 0, cellFill, 0, cellCount);
+        for (int i = 0; i < size; i++) {
+            if (isSkipped(i)) continue;
+            int c0 = column(items.x[i]), c1 = column(items.x[i] + items.width[i]);
+            int r0 = row(items.y[i]), r1 = row(items.y[i] + items.height[i]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    entries[cellFill[r * columns + c]++] = items.handle[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index of the top-most (the last drawn) item under the point or -1
+     */
+    int pick(float x, float y) {
+        int cell = row(y) * columns + column(x);
+        for (int i = cellStart[cell + 1] - 1; i >= cellStart[cell]; i--) {
+            int index = items.indexOf(entries[i]);
+            if (index >= 0 && !isSkipped(index) && items.containsPoint(index, x, y)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the items in the cells overlapping the rectangle, their indices can be read with {@link #getResult(int)}.
+     * These are candidates only, the caller does the exact test.
+     *
+     * @return the number of the found items
+     */
+    int query(float left, float top, float right, float bottom) {
+        queryMark++;
+        int count = 0;
+        int c0 = column(left), c1 = column(right);
+        int r0 = row(top), r1 = row(bottom);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int index = items.indexOf(entries[i]);
+                    if (index < 0 || isSkipped(index) || marks[index] == queryMark) continue;
+                    marks[index] = queryMark;
+                    if (count == results.length) {
+                        results = Arrays.copyOf(results, count * 2);
+                    }
+                    results[count++] = index;
+                }
+            }
+        }
+        return count;
+    }
+
+    int getResult(int index) {
+        return results[index];
+    }
+
+    private boolean isSkipped(int index) {
+        return (items.flags[index] & (TrashStore.FLAG_DRAGGING | TrashStore.FLAG_REMOVED)) != 0;
+    }
+
+    // items outside of the screen are kept in the border cells
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) (x / cellWidth)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) (y / cellHeight)));
+    }
+}
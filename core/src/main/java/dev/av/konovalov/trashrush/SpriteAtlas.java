@@ -0,0 +1,97 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * The sprite table of an atlas: places sprites of the given sizes into one image.
+ * Sprites are put on shelves (rows) from the tallest to the lowest, separated by
+ * {@link #PADDING} pixels so filtering doesn't bleed a neighbour into a sprite.
+ */
+public class SpriteAtlas {
+    public static final int PADDING = 1;
+
+    private final int maxWidth;
+    private int count = 0;
+    private int[] x = new int[0], y = new int[0];
+    private int[] width = new int[0], height = new int[0];
+    private int atlasWidth = 0, atlasHeight = 0;
+
+    /**
+     * @param maxWidth the width of the atlas image can't exceed it
+     */
+    public SpriteAtlas(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * @return the index of the sprite
+     */
+    public int add(int spriteWidth, int spriteHeight) {
+        if (spriteWidth > maxWidth) throw new RuntimeException("Sprite is too wide: " + spriteWidth);
+        if (count == x.length) {
+            int capacity = count * 2 + 8;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+        }
+        width[count] = spriteWidth;
+        height[count] = spriteHeight;
+        return count++;
+    }
+
+    /**
+     * Places all added sprites, the positions and the atlas size are valid after that.
+     */
+    public void pack() {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> height[b] - height[a]);
+
+        int shelfX = 0, shelfY = 0, shelfHeight = 0;
+        atlasWidth = 0;
+        for (int i : order) {
+            if (shelfX > 0 && shelfX + width[i] > maxWidth) {
+                shelfY += shelfHeight + PADDING;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            x[i] = shelfX;
+            y[i] = shelfY;
+            shelfX += width[i] + PADDING;
+            shelfHeight = Math.max(shelfHeight, height[i]);
+            atlasWidth = Math.max(atlasWidth, x[i] + width[i]);
+        }
+        atlasHeight = shelfY + shelfHeight;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getAtlasWidth() {
+        return atlasWidth;
+    }
+
+    public int getAtlasHeight() {
+        return atlasHeight;
+    }
+
+    public int getX(int sprite) {
+        return x[sprite];
+    }
+
+    public int getY(int sprite) {
+        return y[sprite];
+    }
+
+    public int getWidth(int sprite) {
+        return width[sprite];
+    }
+
+    public int getHeight(int sprite) {
+        return height[sprite];
+    }
+}
@@ -0,0 +1,109 @@
+package dev.av.konovalov.trashrush;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a game session: how many items of every type were sorted, put into a wrong bin
+ * or missed, in total and per {@link #BUCKET_SECONDS} of the game time.
+ * <p>
+ * The counters are primitive arrays indexed by ordinals, recording doesn't allocate.
+ * The environmental totals are derived from the counters.
+ */
+public class StatsLedger {
+    public static final int BUCKET_SECONDS = 10;
+    // 10 minutes, the last bucket collects everything after that
+    public static final int MAX_BUCKETS = 60;
+
+    public enum Outcome {
+        SORTED,
+        WRONG,
+        MISSED
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final TrashType[] TYPES = TrashType.values();
+    private static final int CELLS_PER_BUCKET = OUTCOMES.length * TYPES.length;
+
+    // [outcome][type]
+    private final int[] totals = new int[CELLS_PER_BUCKET];
+    // [bucket][outcome][type]
+    private final int[] buckets = new int[MAX_BUCKETS * CELLS_PER_BUCKET];
+    private int bucketCount = 0;
+
+    void record(Outcome outcome, TrashType type, float gameTime) {
+        int cell = outcome.ordinal() * TYPES.length + type.ordinal();
+        totals[cell]++;
+        int bucket = Math.min(MAX_BUCKETS - 1, (int) (gameTime / BUCKET_SECONDS));
+        buckets[bucket * CELLS_PER_BUCKET + cell]++;
+        bucketCount = Math.max(bucketCount, bucket + 1);
+    }
+
+    void reset() {
+        Arrays.fill(totals, 0);
+        Arrays.fill(buckets, 0, bucketCount * CELLS_PER_BUCKET, 0);
+        bucketCount = 0;
+    }
+
+    public void copyTo(StatsLedger other) {
+        System.arraycopy(totals, 0, other.totals, 0, totals.length);
+        System.arraycopy(buckets, 0, other.buckets, 0, buckets.length);
+        other.bucketCount = bucketCount;
+    }
+
+    public int getCount(Outcome outcome, TrashType type) {
+        return totals[outcome.ordinal() * TYPES.length + type.ordinal()];
+    }
+
+    public int getTotal(Outcome outcome) {
+        int sum = 0;
+        int start = outcome.ordinal() * TYPES.length;
+        for (int i = start; i < start + TYPES.length; i++) {
+            sum += totals[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the number of buckets covering the game so far
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public int getBucketCount(int bucket, Outcome outcome, TrashType type) {
+        return buckets[bucket * CELLS_PER_BUCKET + outcome.ordinal() * TYPES.length + type.ordinal()];
+    }
+
+    public int getBucketTotal(int bucket, Outcome outcome) {
+        int sum = 0;
+        int start = bucket * CELLS_PER_BUCKET + outcome.ordinal() * TYPES.length;
+        for (int i = start; i < start + TYPES.length; i++) {
+            sum += buckets[i];
+        }
+        return sum;
+    }
+
+    public float getTreesSaved() {
+        float sum = 0;
+        for (TrashType type : TYPES) {
+            sum += getCount(Outcome.SORTED, type) * type.treesSaved;
+        }
+        return sum;
+    }
+
+    public float getWaterSaved() {
+        float sum = 0;
+        for (TrashType type : TYPES) {
+            sum += getCount(Outcome.SORTED, type) * type.waterSaved;
+        }
+        return sum;
+    }
+
+    public float getCo2Saved() {
+        float sum = 0;
+        for (TrashType type : TYPES) {
+            sum += getCount(Outcome.SORTED, type) * type.co2Saved;
+        }
+        return sum;
+    }
+}
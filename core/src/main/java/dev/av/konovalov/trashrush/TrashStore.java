@@ -0,0 +1,270 @@
+package dev.av.konovalov.trashrush;
+
+/**
+ * Entity store for the trash items: the components are kept in dense arrays
+ * (index 0..size() - 1, in the drawing order), the items are referenced from the outside
+ * by generational handles.
+ * <p>
+ * A handle is a slot number plus the generation of the slot. The generation changes when
+ * the slot is freed, so a handle of a removed item never resolves to another item
+ * that reused its slot.
+ * <p>
+ * Removal only marks the item (a tombstone), indices of the other items stay valid
+ * until {@link #compact()}. A tombstone keeps its slot until then as well.
+ * Only compact() renumbers dense indices, and the store never calls it by itself.
+ * Adding shifts the indices behind the new item, though, so dense indices must not be kept
+ * across {@link #create}. Neither adding nor removing allocates.
+ */
+public class TrashStore {
+    public static final int NONE = -1;
+
+    static final int FLAG_DRAGGING = 1;
+    static final int FLAG_REMOVED = 2;
+
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    // keeps handles non-negative
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    // components, indexed by the dense index
+    float[] x, y;
+    // position at the previous simulation step (used for interpolated rendering)
+    float[] prevX, prevY;
+    float[] width, height;
+    // the drawing order key: y at the moment the item was put on the belt
+    float[] depth;
+    TrashType[] type;
+    // index of the sprite among the sprites of the trash type
+    int[] variant;
+    int[] flags;
+    int[] handle;
+    private int count = 0;
+    private int removedCount = 0;
+
+    // indexed by the slot
+    private final int[] denseIndex;
+    private final int[] generation;
+    private final int[] freeSlots;
+    private int freeCount;
+
+    public TrashStore(int capacity) {
+        if (capacity > SLOT_MASK + 1) throw new RuntimeException("Too many items: " + capacity);
+        // one spare place behind the end for updateDepth
+        int components = capacity + 1;
+        x = new float[components];
+        y = new float[components];
+        prevX = new float[components];
+        prevY = new float[components];
+        width = new float[components];
+        height = new float[components];
+        depth = new float[components];
+        type = new TrashType[components];
+        variant = new int[components];
+        flags = new int[components];
+        handle = new int[components];
+
+        denseIndex = new int[capacity];
+        generation = new int[capacity];
+        freeSlots = new int[capacity];
+        // the lowest slots are taken first
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        freeCount = capacity;
+    }
+
+    /**
+     * Adds an item at its position in the drawing order, the items behind it move by one index.
+     *
+     * @return the handle of the new item or NONE if the store is full
+     * (the tombstones count until the store is compacted)
+     */
+    int create(float startX, float startY, float size, TrashType trashType, int spriteVariant) {
+        if (freeCount == 0) return NONE;
+
+        int slot = freeSlots[--freeCount];
+        int h = (generation[slot] << SLOT_BITS) | slot;
+        int index = insertionIndex(startY);
+        shift(index, index + 1, count - index);
+        count++;
+
+        x[index] = startX;
+        y[index] = startY;
+        prevX[index] = startX;
+        prevY[index] = startY;
+        width[index] = size;
+        height[index] = size;
+        depth[index] = startY;
+        type[index] = trashType;
+        variant[index] = spriteVariant;
+        flags[index] = 0;
+        handle[index] = h;
+        denseIndex[slot] = index;
+        return h;
+    }
+
+    /**
+     * @return the dense index of the item or -1 if the handle is stale
+     * (the item is removed, it can be still a tombstone though - check FLAG_REMOVED)
+     */
+    public int indexOf(int itemHandle) {
+        if (itemHandle < 0) return -1;
+        int slot = itemHandle & SLOT_MASK;
+        if (slot >= generation.length || generation[slot] != itemHandle >>> SLOT_BITS) return -1;
+        return denseIndex[slot];
+    }
+
+    /**
+     * @return true if the handle refers to an item which is still in the game
+     */
+    public boolean isAlive(int itemHandle) {
+        int index = indexOf(itemHandle);
+        return index >= 0 && (flags[index] & FLAG_REMOVED) == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Marks the item as removed, it's cheap to call while iterating over the items.
+     * Its slot is freed when the store is compacted.
+     */
+    void remove(int index) {
+        if ((flags[index] & FLAG_REMOVED) != 0) return;
+        flags[index] |= FLAG_REMOVED;
+        removedCount++;
+    }
+
+    /**
+     * Drops the removed items in a single pass, keeping the order of the rest.
+     */
+    void compact() {
+        if (removedCount == 0) return;
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & FLAG_REMOVED) != 0) {
+                freeSlot(handle[i] & SLOT_MASK);
+            } else {
+                if (n != i) move(i, n);
+                n++;
+            }
+        }
+        count = n;
+        removedCount = 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            freeSlot(handle[i] & SLOT_MASK);
+        }
+        count = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Moves the item to its position in the drawing order after its y was changed (it was dragged).
+     *
+     * @return the new index of the item
+     */
+    int updateDepth(int index) {
+        float newDepth = y[index];
+        int target = insertionIndex(newDepth);
+        if (target > index) target--; // the item itself leaves its old place
+        if (target != index) {
+            // park the item in the spare place behind the end, shift the items in between and put it back
+            int saved = count;
+            move(index, saved);
+            if (target > index) {
+                shift(index + 1, index, target - index);
+            } else {
+                shift(target, target + 1, index - target);
+            }
+            move(saved, target);
+        }
+        depth[target] = newDepth;
+        return target;
+    }
+
+    void update(float conveyorSpeed, float deltaTime) {
+        float dx = conveyorSpeed * deltaTime;
+        for (int i = 0; i < count; i++) {
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            if ((flags[i] & (FLAG_DRAGGING | FLAG_REMOVED)) == 0) {
+                x[i] += dx;
+            }
+        }
+    }
+
+    boolean collidesWith(int index, Bin bin) {
+        return bin.isVisible() &&
+                x[index] < bin.x + bin.width &&
+                x[index] + width[index] > bin.x &&
+                y[index] < bin.y + bin.height &&
+                y[index] + height[index] > bin.y;
+    }
+
+    boolean containsPoint(int index, float px, float py) {
+        return px >= x[index] && px <= x[index] + width[index] &&
+                py >= y[index] && py <= y[index] + height[index];
+    }
+
+    // after the items of the same depth, so a new item is drawn on top of them
+    private int insertionIndex(float itemDepth) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (depth[mid] <= itemDepth) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void freeSlot(int slot) {
+        generation[slot] = (generation[slot] + 1) & GENERATION_MASK;
+        freeSlots[freeCount++] = slot;
+    }
+
+    // copies all components of the item
+    private void move(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        prevX[to] = prevX[from];
+        prevY[to] = prevY[from];
+        width[to] = width[from];
+        height[to] = height[from];
+        depth[to] = depth[from];
+        type[to] = type[from];
+        variant[to] = variant[from];
+        flags[to] = flags[from];
+        handle[to] = handle[from];
+        denseIndex[handle[to] & SLOT_MASK] = to;
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) return;
+        System.arraycopy(x, from, x, to, length);
+        System.arraycopy(y, from, y, to, length);
+        System.arraycopy(prevX, from, prevX, to, length);
+        System.arraycopy(prevY, from, prevY, to, length);
+        System.arraycopy(width, from, width, to, length);
+        System.arraycopy(height, from, height, to, length);
+        System.arraycopy(depth, from, depth, to, length);
+        System.arraycopy(type, from, type, to, length);
+        System.arraycopy(variant, from, variant, to, length);
+        System.arraycopy(flags, from, flags, to, length);
+        System.arraycopy(handle, from, handle, to, length);
+        for (int i = to; i < to + length; i++) {
+            denseIndex[handle[i] & SLOT_MASK] = i;
+        }
+    }
+}
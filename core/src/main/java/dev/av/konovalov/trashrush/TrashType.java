@@ -2,23 +2,18 @@ package dev.av.konovalov.trashrush;
 
 public enum TrashType {
     PLASTIC(1, 5, -15,
-            150, 0, 5,
-            R.drawable.trash_bin_plastic),
+            150, 0, 5),
     PAPER(1, 6, -2,
-            900, 0.1f, 100,
-            R.drawable.trash_bin_paper),
+            900, 0.1f, 100),
 
     GLASS(3, 10, -8,
-            300, 0, 0.5f,
-            R.drawable.trash_bin_glass),
+            300, 0, 0.5f),
 
     METAL(5, 15, -5,
-            200, 0, 4,
-            R.drawable.trash_bin_metal),
+            200, 0, 4),
 
     BATTERY(6, 10, -100,
-            50, 0, 500,
-            R.drawable.trash_bin_battery);
+            50, 0, 500);
 
     public final int unlockLevel;
     public final int reward;
@@ -26,18 +21,15 @@ public enum TrashType {
     public final float co2Saved;
     public final float treesSaved;
     public final float waterSaved;
-    public final int trashBinResource;
 
     TrashType(int unlockLevel, int reward, int penalty,
-              float co2Saved, float treesSaved, float waterSaved,
-              int trashBinResource) {
+              float co2Saved, float treesSaved, float waterSaved) {
         this.unlockLevel = unlockLevel;
         this.reward = reward;
         this.penalty = penalty;
         this.co2Saved = co2Saved;
         this.treesSaved = treesSaved;
         this.waterSaved = waterSaved;
-        this.trashBinResource = trashBinResource;
     }
 
     public int getColor() {
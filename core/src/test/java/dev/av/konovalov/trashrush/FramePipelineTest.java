@@ -0,0 +1,76 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class FramePipelineTest {
+    private final FramePipeline pipeline = new FramePipeline(1);
+
+    @Test
+    public void producerWaitsForTheRenderer() throws InterruptedException {
+        RenderSnapshot first = pipeline.takeFree();
+        pipeline.submit(first);
+        assertSame(first, pipeline.acquire());
+        RenderSnapshot second = pipeline.takeFree();
+        pipeline.submit(second);
+
+        // depth 1: the renderer holds one snapshot, the other one is ready, nothing is free
+        AtomicReference<RenderSnapshot> taken = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                taken.set(pipeline.takeFree());
+            } catch (InterruptedException e) {
+                // the test failed
+            }
+        });
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive());
+
+        assertSame(second, pipeline.acquire());
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        assertSame(first, taken.get());
+    }
+
+    @Test
+    public void acquireReturnsTheNewestSnapshot() {
+        RenderSnapshot first = pipeline.pollFree();
+        pipeline.submit(first);
+        RenderSnapshot second = pipeline.pollFree();
+        pipeline.submit(second);
+
+        // the renderer was late, the older snapshot is skipped and released
+        assertSame(second, pipeline.acquire());
+        assertSame(first, pipeline.pollFree());
+        assertNull(pipeline.pollFree());
+
+        // nothing new, the same snapshot again
+        assertSame(second, pipeline.acquire());
+        pipeline.submit(first);
+        assertSame(first, pipeline.acquire());
+        assertSame(second, pipeline.pollFree());
+    }
+
+    @Test
+    public void inlineModeAlwaysHasAFreeSnapshot() {
+        assertNull(pipeline.acquire());
+        for (int i = 0; i < 10; i++) {
+            // the same thread fills and draws, the previous snapshot is released by acquire
+            RenderSnapshot snapshot = pipeline.pollFree();
+            assertNotNull(snapshot);
+            pipeline.submit(snapshot);
+            assertSame(snapshot, pipeline.acquire());
+        }
+    }
+
+    @Test
+    public void pollFreeDoesNotWait() {
+        assertNotNull(pipeline.pollFree());
+        assertNotNull(pipeline.pollFree());
+        assertNull(pipeline.pollFree());
+    }
+}
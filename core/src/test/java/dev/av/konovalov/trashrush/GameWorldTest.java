@@ -0,0 +1,163 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameWorldTest {
+    private static final float STEP = 1.0f / 120.0f;
+    private static final float SCREEN_WIDTH = 1920;
+    private static final float BELT_Y = 300;
+
+    private final List<Integer> sounds = new ArrayList<>();
+    private StatsLedger finalStats = null;
+    private final InputQueue inputs = new InputQueue();
+    private GameWorld world;
+
+    @Before
+    public void setUp() {
+        int[] variants = new int[TrashType.values().length];
+        Arrays.fill(variants, 2);
+        world = new GameWorld(new GameWorld.Listener() {
+            @Override
+            public void onSound(int soundId) {
+                sounds.add(soundId);
+            }
+
+            @Override
+            public String formatMessage(GameWorld.MessageType type, int value) {
+                return type + " " + value;
+            }
+
+            @Override
+            public void onGameOver(StatsLedger stats) {
+                finalStats = stats;
+            }
+        }, variants, new Random(42));
+        world.setLayout(SCREEN_WIDTH, 1080, BELT_Y, 450, 300, 140);
+
+        List<Bin> bins = new ArrayList<>();
+        for (TrashType type : TrashType.values()) {
+            bins.add(new Bin(0, 900, 150, 200, type));
+        }
+        world.setBins(bins);
+
+        world.requestRestart();
+        world.step(STEP, inputs);
+    }
+
+    private void run(float seconds) {
+        for (int i = 0; i < (int) (seconds / STEP); i++) {
+            world.step(STEP, inputs);
+        }
+    }
+
+    @Test
+    public void spawnsTrashOnTheBelt() {
+        assertTrue(world.isActive());
+        run(2.5f);
+
+        TrashStore items = world.getTrashItems();
+        assertEquals(1, items.size());
+        assertTrue(items.y[0] >= BELT_Y - 140 && items.y[0] <= BELT_Y + 450);
+        assertTrue(items.x[0] > items.prevX[0]);
+    }
+
+    @Test
+    public void missedTrashCostsMoney() {
+        // the first item needs ~17 seconds to cross the screen, the initial balance covers one miss only
+        run(60);
+
+        assertTrue(sounds.contains(GameWorld.SOUND_MISS));
+        assertNotNull(finalStats);
+        assertEquals(2, finalStats.getTotal(StatsLedger.Outcome.MISSED));
+        // nothing can be missed in the first 10 seconds
+        assertEquals(0, finalStats.getBucketTotal(0, StatsLedger.Outcome.MISSED));
+        int missed = 0;
+        for (int i = 0; i < finalStats.getBucketCount(); i++) {
+            missed += finalStats.getBucketTotal(i, StatsLedger.Outcome.MISSED);
+        }
+        assertEquals(2, missed);
+        assertFalse(world.isActive());
+    }
+
+    @Test
+    public void keepsItemsInTheDrawingOrder() {
+        for (int i = 0; i < 50; i++) {
+            assertNotEquals(TrashStore.NONE, world.spawnTrash());
+        }
+        TrashStore items = world.getTrashItems();
+        for (int i = 1; i < items.size(); i++) {
+            assertTrue(items.y[i - 1] <= items.y[i]);
+        }
+    }
+
+    @Test
+    public void picksTheTopMostItem() {
+        world.spawnTrash();
+        world.spawnTrash();
+        TrashStore items = world.getTrashItems();
+        // the same spot, the one drawn later must be picked
+        items.x[0] = items.x[1] = 500;
+        items.y[0] = items.y[1] = 400;
+        world.updateTrashItems(0);
+        int top = items.handle[1];
+
+        inputs.add(InputQueue.ACTION_DOWN, 550, 450);
+        world.step(STEP, inputs);
+
+        assertEquals(top, world.getDraggedItem());
+    }
+
+    @Test
+    public void draggingIntoTheRightBinRewards() {
+        run(2.5f);
+        TrashStore items = world.getTrashItems();
+        TrashType type = items.type[0];
+        int handle = items.handle[0];
+        Bin bin = null;
+        for (Bin b : world.getBins()) {
+            if (b.acceptedType == type) bin = b;
+        }
+        assertNotNull(bin);
+        int money = world.getMoney();
+
+        inputs.add(InputQueue.ACTION_DOWN, items.x[0] + 1, items.y[0] + 1);
+        inputs.add(InputQueue.ACTION_MOVE, bin.x + 1, bin.y + 1);
+        inputs.add(InputQueue.ACTION_UP, bin.x + 1, bin.y + 1);
+        world.step(STEP, inputs);
+
+        assertTrue(items.isEmpty());
+        assertFalse(items.isAlive(handle));
+        assertEquals(TrashStore.NONE, world.getDraggedItem());
+        assertEquals(money + type.reward, world.getMoney());
+        assertEquals(1, bin.itemsSorted);
+        assertEquals(1, world.getStats().getCount(StatsLedger.Outcome.SORTED, type));
+        assertEquals(type.treesSaved, world.getStats().getTreesSaved(), 0.001f);
+        assertFalse(world.getParticles().isEmpty());
+    }
+
+    @Test
+    public void droppingOffTheBeltIsAMiss() {
+        run(2.5f);
+        TrashStore items = world.getTrashItems();
+        TrashType type = items.type[0];
+
+        // above the belt, away from the bins
+        inputs.add(InputQueue.ACTION_DOWN, items.x[0] + 1, items.y[0] + 1);
+        inputs.add(InputQueue.ACTION_MOVE, 500, 50);
+        inputs.add(InputQueue.ACTION_UP, 500, 50);
+        world.step(STEP, inputs);
+
+        assertTrue(items.isEmpty());
+        assertTrue(sounds.contains(GameWorld.SOUND_MISS));
+        assertEquals(1, world.getStats().getCount(StatsLedger.Outcome.MISSED, type));
+        assertEquals(1, world.getStats().getBucketTotal(0, StatsLedger.Outcome.MISSED));
+    }
+}
@@ -0,0 +1,71 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+    @Test
+    public void keepsOrderAcrossWrapAround() {
+        InputQueue queue = new InputQueue();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.add(InputQueue.ACTION_MOVE, i, -i));
+            assertEquals(1, queue.size());
+            assertTrue(queue.poll());
+            assertEquals(InputQueue.ACTION_MOVE, queue.getAction());
+            assertEquals(i, queue.getX(), 0);
+            assertEquals(-i, queue.getY(), 0);
+        }
+        assertFalse(queue.poll());
+    }
+
+    @Test
+    public void dropsEventsWhenFull() {
+        InputQueue queue = new InputQueue();
+        int added = 0;
+        while (queue.add(InputQueue.ACTION_DOWN, added, 0)) {
+            added++;
+        }
+        assertEquals(added, queue.size());
+
+        assertTrue(queue.poll());
+        assertEquals(0, queue.getX(), 0);
+        assertTrue(queue.add(InputQueue.ACTION_UP, 1, 2));
+    }
+
+    @Test
+    public void concurrentProducer() throws InterruptedException {
+        InputQueue queue = new InputQueue();
+        int count = 100000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.add(InputQueue.ACTION_MOVE, i, i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < count; i++) {
+            while (!queue.poll()) {
+                Thread.yield();
+            }
+            assertEquals(i, queue.getX(), 0);
+            assertEquals(i, queue.getY(), 0);
+        }
+        producer.join();
+    }
+
+    @Test
+    public void clearDropsQueuedEvents() {
+        InputQueue queue = new InputQueue();
+        queue.add(InputQueue.ACTION_DOWN, 1, 2);
+        queue.add(InputQueue.ACTION_MOVE, 3, 4);
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertFalse(queue.poll());
+        assertTrue(queue.add(InputQueue.ACTION_UP, 5, 6));
+        assertTrue(queue.poll());
+        assertEquals(InputQueue.ACTION_UP, queue.getAction());
+    }
+}
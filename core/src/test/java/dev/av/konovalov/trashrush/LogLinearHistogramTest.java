@@ -0,0 +1,86 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogLinearHistogramTest {
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int value = 0; value < 64; value++) {
+            assertEquals(value, LogLinearHistogram.indexOf(value));
+            assertEquals(value, LogLinearHistogram.highestValueAt(value));
+        }
+        // from here on two values share a bucket
+        assertEquals(64, LogLinearHistogram.indexOf(64));
+        assertEquals(64, LogLinearHistogram.indexOf(65));
+        assertEquals(65, LogLinearHistogram.indexOf(66));
+        assertEquals(65, LogLinearHistogram.highestValueAt(64));
+    }
+
+    @Test
+    public void bucketsAreContiguousWithinTheError() {
+        long value = 0;
+        while (value <= LogLinearHistogram.MAX_VALUE) {
+            int index = LogLinearHistogram.indexOf(value);
+            long highest = LogLinearHistogram.highestValueAt(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32);
+            if (index > 0) {
+                // the previous bucket ends right before this one
+                assertTrue(LogLinearHistogram.highestValueAt(index - 1) < value);
+                assertEquals(index, LogLinearHistogram.indexOf(LogLinearHistogram.highestValueAt(index - 1) + 1));
+            }
+            value = highest + 1;
+        }
+        assertEquals(LogLinearHistogram.MAX_VALUE, LogLinearHistogram.highestValueAt(LogLinearHistogram.indexOf(LogLinearHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentiles() {
+        assertEquals(0, histogram.getPercentile(50));
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getPercentile(50), 500000 / 32.0);
+        assertEquals(990000, histogram.getPercentile(99), 990000 / 32.0);
+        assertEquals(1000000, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentile(100));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(LogLinearHistogram.MAX_VALUE, histogram.getMax());
+        assertEquals(LogLinearHistogram.MAX_VALUE, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void recordsFromSeveralThreads() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long base = t * 1000000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    histogram.record(base + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400000, histogram.getCount());
+        assertEquals(3000000 + 99999, histogram.getMax());
+    }
+}
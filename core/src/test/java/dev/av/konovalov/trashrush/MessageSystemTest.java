@@ -0,0 +1,57 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageSystemTest {
+    private int formatted = 0;
+
+    private final MessageSystem messages = new MessageSystem(new GameWorld.Listener() {
+        @Override
+        public void onSound(int soundId) {
+        }
+
+        @Override
+        public String formatMessage(GameWorld.MessageType type, int value) {
+            formatted++;
+            return "+" + value;
+        }
+
+        @Override
+        public void onGameOver(StatsLedger stats) {
+        }
+    }, 4);
+
+    @Test
+    public void mergesIdenticalMessagesNearby() {
+        messages.add(GameWorld.MessageType.REWARD, 5, GameWorld.COLOR_GREEN, 100, 500);
+        messages.add(GameWorld.MessageType.REWARD, 5, GameWorld.COLOR_GREEN, 120, 510);
+        messages.add(GameWorld.MessageType.REWARD, 5, GameWorld.COLOR_GREEN, 90, 490);
+
+        assertEquals(1, messages.size());
+        assertEquals(1, formatted);
+        assertEquals(3, messages.get(0).repeatCount);
+        assertEquals("+5", messages.get(0).text);
+
+        // far away or different - a separate message
+        messages.add(GameWorld.MessageType.REWARD, 5, GameWorld.COLOR_GREEN, 1000, 500);
+        messages.add(GameWorld.MessageType.REWARD, 7, GameWorld.COLOR_GREEN, 100, 500);
+        assertEquals(3, messages.size());
+    }
+
+    @Test
+    public void recyclesTheOldestWhenFull() {
+        for (int i = 0; i < 10; i++) {
+            messages.add(GameWorld.MessageType.REWARD, i, GameWorld.COLOR_GREEN, 100, 500);
+            messages.update(0.1f);
+        }
+
+        assertEquals(4, messages.size());
+        assertEquals(6, messages.get(0).value);
+        assertEquals(9, messages.get(3).value);
+
+        messages.update(10);
+        assertEquals(0, messages.size());
+    }
+}
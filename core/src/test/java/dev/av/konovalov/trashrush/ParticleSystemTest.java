@@ -0,0 +1,75 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParticleSystemTest {
+    // lifetime 0.5 s, speed 0.5
+    private static final Random SHORT_LIVED = new FixedRandom(0);
+    // lifetime ~1 s, speed ~1.5
+    private static final Random LONG_LIVED = new FixedRandom(0.99f);
+
+    private final ParticleSystem particles = new ParticleSystem(16);
+
+    @Test
+    public void dropsTheBurstPartPastTheCapacity() {
+        particles.emit(0, 0, GameWorld.COLOR_RED, 10, 1, SHORT_LIVED);
+        particles.emit(0, 0, GameWorld.COLOR_RED, 10, 1, SHORT_LIVED);
+        assertEquals(16, particles.size());
+        particles.emit(0, 0, GameWorld.COLOR_RED, 10, 1, SHORT_LIVED);
+        assertEquals(16, particles.size());
+    }
+
+    @Test
+    public void removalKeepsTheLiveParticlesDense() {
+        // the dying particles are interleaved with the surviving ones
+        particles.emit(0, 0, GameWorld.COLOR_RED, 3, 1, SHORT_LIVED);
+        particles.emit(1000, 0, GameWorld.COLOR_GREEN, 3, 1, LONG_LIVED);
+        particles.emit(0, 0, GameWorld.COLOR_RED, 3, 1, SHORT_LIVED);
+        particles.emit(1000, 0, GameWorld.COLOR_GREEN, 3, 1, LONG_LIVED);
+        particles.update(0.75f);
+        assertEquals(6, particles.size());
+
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.ensureParticleCapacity(particles.capacity());
+        Arrays.fill(snapshot.particleX, -1);
+        particles.writeTo(snapshot);
+
+        assertEquals(6, snapshot.particleCount);
+        // every survivor moved exactly once, with its own velocity
+        float expectedX = 1000 + (0.5f + 0.99f) * 0.75f * 60;
+        for (int i = 0; i < 6; i++) {
+            assertEquals(0x00FF00, snapshot.particleColor[i] & 0x00FFFFFF);
+            assertTrue(snapshot.particleColor[i] >>> 24 > 0);
+            assertEquals(1000, snapshot.particlePrevX[i], 0);
+            assertEquals(expectedX, snapshot.particleX[i], 0.01f);
+        }
+        // only the live particles are copied
+        for (int i = 6; i < snapshot.particleX.length; i++) {
+            assertEquals(-1, snapshot.particleX[i], 0);
+        }
+    }
+
+    private static class FixedRandom extends Random {
+        private final float value;
+
+        FixedRandom(float value) {
+            this.value = value;
+        }
+
+        @Override
+        public float nextFloat() {
+            return value;
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            // the direction along the x axis
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SceneRendererTest {
+    private static final float SCREEN_WIDTH = 1920;
+    private static final float SCREEN_HEIGHT = 1080;
+    private static final float UI_ZONE_HEIGHT = 162;
+
+    private final RecordingRenderTarget target = new RecordingRenderTarget(SCREEN_WIDTH, SCREEN_HEIGHT);
+    private final SceneRenderer renderer = new SceneRenderer(new Random(42));
+    private final RenderSnapshot frame = new RenderSnapshot();
+
+    @Before
+    public void setUp() {
+        int staticLayer = target.addImage((int) SCREEN_WIDTH, (int) SCREEN_HEIGHT);
+        int belt = target.addImage(300, 450);
+        int header = target.addImage((int) SCREEN_WIDTH, (int) UI_ZONE_HEIGHT);
+        int[][] trash = new int[TrashType.values().length][];
+        for (int i = 0; i < trash.length; i++) {
+            trash[i] = new int[]{target.addImage(140, 140)};
+        }
+        renderer.setImages(staticLayer, belt, header, trash);
+        renderer.setLayout(SCREEN_WIDTH, UI_ZONE_HEIGHT, 400);
+        frame.active = true;
+    }
+
+    private void addItems(int count) {
+        frame.ensureItemCapacity(count);
+        for (int i = 0; i < count; i++) {
+            frame.itemX[i] = frame.itemPrevX[i] = i * 150;
+            frame.itemY[i] = frame.itemPrevY[i] = 500;
+            frame.itemWidth[i] = frame.itemHeight[i] = 140;
+            frame.itemType[i] = i % TrashType.values().length;
+        }
+        frame.itemCount = count;
+    }
+
+    private void render() {
+        target.beginFrame();
+        renderer.draw(target, frame, 0.5f);
+    }
+
+    @Test
+    public void emptyFrameIsAboutOneScreenOfPixels() {
+        render();
+        // the static layer, the belt, the header and the progress bar
+        assertEquals(4, target.getDrawCalls());
+        assertTrue(target.getOverdraw() < 1.6);
+    }
+
+    @Test
+    public void itemAddsOneDrawCall() {
+        render();
+        int empty = target.getDrawCalls();
+        addItems(10);
+        render();
+        assertEquals(empty + 10, target.getDrawCalls());
+    }
+
+    @Test
+    public void particlesAreBatched() {
+        render();
+        int empty = target.getDrawCalls();
+
+        Random random = new Random(1);
+        frame.ensureParticleCapacity(1000);
+        for (int i = 0; i < 1000; i++) {
+            frame.particleX[i] = frame.particlePrevX[i] = random.nextFloat() * SCREEN_WIDTH;
+            frame.particleY[i] = frame.particlePrevY[i] = random.nextFloat() * SCREEN_HEIGHT;
+            frame.particleSize[i] = 4;
+            frame.particleColor[i] = (random.nextInt(256) << 24) | 0xFF0000;
+        }
+        frame.particleCount = 1000;
+        render();
+
+        // one call per alpha level
+        assertTrue(target.getDrawCalls() - empty <= 8);
+    }
+}
@@ -0,0 +1,32 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpriteAtlasTest {
+    @Test
+    public void spritesDontOverlap() {
+        SpriteAtlas atlas = new SpriteAtlas(512);
+        for (int i = 0; i < 11; i++) {
+            atlas.add(140, 140);
+        }
+        for (int i = 0; i < 5; i++) {
+            atlas.add(120 + i * 10, 200);
+        }
+        atlas.pack();
+
+        assertTrue(atlas.getAtlasWidth() <= 512);
+        for (int a = 0; a < atlas.size(); a++) {
+            assertTrue(atlas.getX(a) + atlas.getWidth(a) <= atlas.getAtlasWidth());
+            assertTrue(atlas.getY(a) + atlas.getHeight(a) <= atlas.getAtlasHeight());
+            for (int b = a + 1; b < atlas.size(); b++) {
+                boolean apart = atlas.getX(a) + atlas.getWidth(a) + SpriteAtlas.PADDING <= atlas.getX(b) ||
+                        atlas.getX(b) + atlas.getWidth(b) + SpriteAtlas.PADDING <= atlas.getX(a) ||
+                        atlas.getY(a) + atlas.getHeight(a) + SpriteAtlas.PADDING <= atlas.getY(b) ||
+                        atlas.getY(b) + atlas.getHeight(b) + SpriteAtlas.PADDING <= atlas.getY(a);
+                assertTrue("sprites " + a + " and " + b, apart);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StatsLedgerTest {
+    private final StatsLedger ledger = new StatsLedger();
+
+    @Test
+    public void recordsIntoTenSecondBuckets() {
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.PLASTIC, 0);
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.PLASTIC, 9.9f);
+        ledger.record(StatsLedger.Outcome.WRONG, TrashType.PAPER, 10);
+        ledger.record(StatsLedger.Outcome.MISSED, TrashType.PLASTIC, 35);
+
+        assertEquals(4, ledger.getBucketCount());
+        assertEquals(2, ledger.getBucketCount(0, StatsLedger.Outcome.SORTED, TrashType.PLASTIC));
+        assertEquals(1, ledger.getBucketCount(1, StatsLedger.Outcome.WRONG, TrashType.PAPER));
+        assertEquals(0, ledger.getBucketTotal(2, StatsLedger.Outcome.MISSED));
+        assertEquals(1, ledger.getBucketTotal(3, StatsLedger.Outcome.MISSED));
+
+        assertEquals(2, ledger.getCount(StatsLedger.Outcome.SORTED, TrashType.PLASTIC));
+        assertEquals(1, ledger.getTotal(StatsLedger.Outcome.WRONG));
+        assertEquals(TrashType.PLASTIC.treesSaved * 2, ledger.getTreesSaved(), 0.001f);
+    }
+
+    @Test
+    public void longSessionsEndInTheLastBucket() {
+        float last = (StatsLedger.MAX_BUCKETS - 1) * StatsLedger.BUCKET_SECONDS;
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.GLASS, last);
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.GLASS, last * 10);
+
+        assertEquals(StatsLedger.MAX_BUCKETS, ledger.getBucketCount());
+        assertEquals(2, ledger.getBucketCount(StatsLedger.MAX_BUCKETS - 1, StatsLedger.Outcome.SORTED, TrashType.GLASS));
+        assertEquals(2, ledger.getTotal(StatsLedger.Outcome.SORTED));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.METAL, 15);
+        ledger.reset();
+
+        assertEquals(0, ledger.getBucketCount());
+        assertEquals(0, ledger.getTotal(StatsLedger.Outcome.SORTED));
+        assertEquals(0, ledger.getBucketTotal(1, StatsLedger.Outcome.SORTED));
+        assertEquals(0, ledger.getCo2Saved(), 0);
+    }
+
+    @Test
+    public void copyIsIndependentOfTheSource() {
+        StatsLedger copy = new StatsLedger();
+        // the copy had a longer session before
+        copy.record(StatsLedger.Outcome.WRONG, TrashType.BATTERY, 100);
+
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.PAPER, 5);
+        ledger.record(StatsLedger.Outcome.MISSED, TrashType.PAPER, 12);
+        ledger.copyTo(copy);
+        ledger.record(StatsLedger.Outcome.SORTED, TrashType.PAPER, 25);
+
+        assertEquals(2, copy.getBucketCount());
+        assertEquals(1, copy.getCount(StatsLedger.Outcome.SORTED, TrashType.PAPER));
+        assertEquals(1, copy.getBucketCount(1, StatsLedger.Outcome.MISSED, TrashType.PAPER));
+        assertEquals(0, copy.getTotal(StatsLedger.Outcome.WRONG));
+        assertEquals(0, copy.getBucketTotal(10, StatsLedger.Outcome.WRONG));
+    }
+}
@@ -0,0 +1,56 @@
+package dev.av.konovalov.trashrush;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrashStoreTest {
+    private final TrashStore store = new TrashStore(4);
+
+    @Test
+    public void staleHandlesAreDetected() {
+        int first = store.create(0, 100, 10, TrashType.PLASTIC, 0);
+        store.remove(store.indexOf(first));
+        assertFalse(store.isAlive(first));
+
+        store.compact();
+        // the slot is reused by the next item
+        int second = store.create(0, 200, 10, TrashType.PLASTIC, 0);
+        assertTrue(store.isAlive(second));
+        assertFalse(store.isAlive(first));
+        assertEquals(-1, store.indexOf(first));
+    }
+
+    @Test
+    public void keepsTheDrawingOrder() {
+        int a = store.create(0, 300, 10, TrashType.PLASTIC, 0);
+        int b = store.create(0, 100, 10, TrashType.PLASTIC, 0);
+        int c = store.create(0, 200, 10, TrashType.PLASTIC, 0);
+        int d = store.create(0, 400, 10, TrashType.PLASTIC, 0);
+        assertEquals(TrashStore.NONE, store.create(0, 0, 10, TrashType.PLASTIC, 0));
+        assertOrder(b, c, a, d);
+
+        // dragged down...
+        store.y[store.indexOf(b)] = 350;
+        store.updateDepth(store.indexOf(b));
+        assertOrder(c, a, b, d);
+
+        // ...and up
+        store.y[store.indexOf(d)] = 0;
+        store.updateDepth(store.indexOf(d));
+        assertOrder(d, c, a, b);
+
+        store.remove(store.indexOf(c));
+        // the tombstone holds its slot until the store is compacted
+        assertEquals(TrashStore.NONE, store.create(0, 0, 10, TrashType.PLASTIC, 0));
+        store.compact();
+        assertOrder(d, a, b);
+    }
+
+    private void assertOrder(int... handles) {
+        assertEquals(handles.length, store.size());
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals(i, store.indexOf(handles[i]));
+        }
+    }
+}